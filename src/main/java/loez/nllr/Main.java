@@ -1,8 +1,10 @@
 package loez.nllr;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Random;
 import java.util.logging.Level;
 
+import loez.nllr.domain.Pruner;
 import loez.nllr.preprocessor.exception.StemmerCreationException;
 
 public class Main {
@@ -13,7 +15,7 @@ public class Main {
     private static final String DEFAULT_TIMESPAN_LENGTH = "biweekly";
     private static final Level DEFAULT_LOGGING_LEVEL = Level.INFO;
 
-    public static void main(final String[] args) throws StemmerCreationException, FileNotFoundException {
+    public static void main(final String[] args) throws StemmerCreationException, IOException {
 
         String corpus = null;
         String language = DEFAULT_LANGUAGE;
@@ -50,7 +52,31 @@ public class Main {
             loggingLevel = Level.parse(getArgValue("-log", args).toUpperCase().trim());
         }
 
-        final Process process = new Process(loggingLevel, corpus, language, preprocessor, dateFormat, timespanLength);
+        int threads = 1;
+        if (hasArg("-th", args)) {
+            threads = getArgValueAsInt("-th", args);
+        }
+
+        int minDocumentFrequency = 0;
+        if (hasArg("-mindf", args)) {
+            minDocumentFrequency = getArgValueAsInt("-mindf", args);
+        }
+
+        int maxVocabularySize = Pruner.UNLIMITED;
+        if (hasArg("-maxvocab", args)) {
+            maxVocabularySize = getArgValueAsInt("-maxvocab", args);
+
+            if (maxVocabularySize <= 0) {
+                System.out.println("Maximum vocabulary size given with -maxvocab must be positive");
+                System.exit(1);
+            }
+        }
+
+        final Process process = new Process(loggingLevel, corpus, language, preprocessor, dateFormat, timespanLength, threads);
+
+        if (hasArg("-stop", args) || hasArg("-mindf", args) || hasArg("-maxvocab", args)) {
+            process.prune(hasArg("-stop", args) ? language : null, minDocumentFrequency, maxVocabularySize);
+        }
 
         int times = 1;
         if (hasArg("-t", args)) {
@@ -62,7 +88,17 @@ public class Main {
             crossValidation = getArgValueAsInt("-cv", args);
         }
 
-        process.run(times, crossValidation);
+        int parallelFolds = 1;
+        if (hasArg("-pf", args)) {
+            parallelFolds = getArgValueAsInt("-pf", args);
+        }
+
+        long seed = new Random().nextLong();
+        if (hasArg("-seed", args)) {
+            seed = Long.parseLong(getArgValue("-seed", args));
+        }
+
+        process.run(times, crossValidation, parallelFolds, seed);
     }
 
     public static int getArgValueAsInt(final String needle, final String[] args) {
@@ -1,40 +1,77 @@
 package loez.nllr;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import loez.nllr.algorithm.Argmax;
 import loez.nllr.algorithm.Nllr;
+import loez.nllr.algorithm.NllrModel;
 import loez.nllr.domain.Corpus;
 import loez.nllr.domain.Document;
+import loez.nllr.domain.EpochDay;
+import loez.nllr.domain.Pruner;
 import loez.nllr.domain.TimeSpan;
 import loez.nllr.domain.TimeSpan.Length;
+import loez.nllr.domain.Vocabulary;
 import loez.nllr.preprocessor.PreProcessor;
 import loez.nllr.preprocessor.SimplePreprocessor;
 import loez.nllr.preprocessor.SnowballPreprocessor;
+import loez.nllr.preprocessor.Stopwords;
 import loez.nllr.preprocessor.exception.StemmerCreationException;
 import loez.nllr.reader.CorpusReader;
 import loez.nllr.util.CrossValidationHelper;
+import loez.nllr.util.FoldPlan;
 
 public class Process {
 
+    private static final int KILOBYTE = 1024;
+
     private final SimpleDateFormat dateFormat;
     private final PreProcessor preprocessor;
     private final Corpus corpus;
     private final Length timespanLength;
     private final Level loggingLevel;
+    private final int threads;
 
     public Process(final Level loggingLevel, final String corpus, final String language, final String preprocessor, final String dateFormat, final String timespanLength) throws StemmerCreationException, FileNotFoundException {
 
+        this(loggingLevel, corpus, language, preprocessor, dateFormat, timespanLength, 1);
+    }
+
+    public Process(final Level loggingLevel, final String corpus, final String language, final String preprocessor, final String dateFormat, final String timespanLength, final int threads) throws StemmerCreationException, FileNotFoundException {
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+
         this.loggingLevel = loggingLevel;
+        this.threads = threads;
         this.preprocessor = getPreprocessor(preprocessor, language);
         this.dateFormat = new SimpleDateFormat(dateFormat, Locale.US);
-        this.corpus = new CorpusReader().readCorpus(corpus, this.dateFormat, this.preprocessor);
+        this.corpus = new CorpusReader().readCorpus(corpus, this.dateFormat, this.preprocessor, Vocabulary.getDefault(), threads);
         this.timespanLength = Length.forString(timespanLength);
+
+        if (this.preprocessor instanceof SnowballPreprocessor) {
+            final SnowballPreprocessor snowball = (SnowballPreprocessor) this.preprocessor;
+            log(Level.FINE, "stem cache hits: " + snowball.getCacheHits() + ", misses: " + snowball.getCacheMisses());
+        }
     }
 
     private PreProcessor getPreprocessor(final String preprocessor, final String language) throws StemmerCreationException {
@@ -48,89 +85,187 @@ public class Process {
         }
     }
 
+    /**
+     * Prunes stopwords and rare tokens from the corpus, before any runs.
+     * This is corpus-level preprocessing and not clean for cross-validation: the document frequencies and the
+     * ranking of tokens are counted over the whole corpus, including the documents later used as test folds.
+     * Stopwords depend on no documents, so pruning only them is clean.
+     * @param stopwordLanguage      Language of the stopword list, or null for no stopwords
+     * @param minDocumentFrequency  Tokens found in fewer documents are pruned
+     * @param maxVocabularySize     Number of most common tokens to keep, or Pruner.UNLIMITED
+     * @throws IOException if the stopword list cannot be read
+     */
+    public void prune(final String stopwordLanguage, final int minDocumentFrequency, final int maxVocabularySize) throws IOException {
+
+        Set<String> stopwords = Collections.emptySet();
+        if (stopwordLanguage != null) {
+            stopwords = Stopwords.load(stopwordLanguage, preprocessor);
+            log(Level.INFO, "stopwords: " + stopwordLanguage + ", " + stopwords.size() + " tokens");
+        }
+
+        if (minDocumentFrequency > 1 || maxVocabularySize != Pruner.UNLIMITED) {
+            log(Level.WARNING, "Pruning by document frequency counts test documents too, so cross-validation results are optimistic");
+        }
+
+        final Pruner.Report report = new Pruner(stopwords, minDocumentFrequency, maxVocabularySize).prune(corpus);
+
+        log(Level.INFO, "Pruned " + report.getPrunedTokens() + " tokens (" + report.getPrunedOccurrences() +
+                " occurrences), kept " + report.getKeptTokens() + " tokens");
+        log(Level.INFO, "Token counts shrank from " + report.getBytesBefore() / KILOBYTE + " kB to " +
+                report.getBytesAfter() / KILOBYTE + " kB, saving " + report.getBytesSaved() / KILOBYTE + " kB");
+    }
+
     public void run(final int times, final int crossValidation) {
 
-        log(Level.INFO, "Running " + times + " times with CV" + crossValidation);
-        for (int i = 0; i < times; i++) {
-            run(crossValidation);
+        run(times, crossValidation, 1, new Random().nextLong());
+    }
+
+    /**
+     * Runs cross-validation TIMES times, evaluating up to PARALLELFOLDS folds concurrently.
+     * The folds of each repetition are shuffled with a seed drawn from SEED, so a run can be repeated exactly.
+     * Folds of all runs are queued on one executor, and a new fold is only started once a running one has
+     * finished, which bounds the amount of training corpuses in memory. Every fold logs into its own buffer,
+     * and the buffers are printed in fold order as soon as all earlier folds have been printed.
+     * Each fold may itself use several threads for classification, see the threads parameter of the constructor.
+     */
+    public void run(final int times, final int crossValidation, final int parallelFolds, final long seed) {
+
+        if (parallelFolds < 1) {
+            throw new IllegalArgumentException("Parallel fold count must be positive: " + parallelFolds);
+        }
+
+        log(Level.INFO, "Running " + times + " times with CV" + crossValidation + ", seed " + seed);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelFolds);
+        final Semaphore permits = new Semaphore(parallelFolds);
+        final Deque<Future<String>> pending = new ArrayDeque<>();
+
+        final TimeSpan timeSpan = new TimeSpan(corpus.getStartDay(), timespanLength);
+        final SortedMap<Integer, Corpus> partitions = corpus.partition(timeSpan);
+        final Random seeds = new Random(seed);
+
+        try {
+            for (int i = 0; i < times; i++) {
+
+                final StringBuilder header = new StringBuilder();
+                log(header, Level.INFO, "\n-----------------\nRunning with CV" + crossValidation);
+
+                final FoldPlan plan = new FoldPlan(corpus, crossValidation, seeds.nextLong());
+
+                log(header, Level.FINE, "\tSplit input corpus to " + plan.size() + " parts");
+
+                String prefix = header.toString();
+                for (int fold = 0; fold < plan.size(); fold++) {
+                    permits.acquire();
+                    pending.add(executor.submit(fold(prefix, plan, fold, timeSpan, partitions, permits)));
+                    prefix = "";
+
+                    printFinished(pending, false);
+                }
+            }
+
+            printFinished(pending, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running folds", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Running a fold failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
     }
 
-    private void run(final int crossValidation) {
+    /**
+     * Creates a task that evaluates one fold and returns its log, releasing a permit when done.
+     * The training corpus and its partitions are derived from the whole corpus by subtracting the test corpus.
+     * The whole corpus and its partitions are only read, so folds can run concurrently.
+     */
+    private Callable<String> fold(final String prefix, final FoldPlan plan, final int fold, final TimeSpan timeSpan, final SortedMap<Integer, Corpus> partitions, final Semaphore permits) {
 
-        log(Level.INFO, "\n-----------------\nRunning with CV" + crossValidation);
+        return new Callable<String>() {
+            @Override
+            public String call() {
+                final StringBuilder out = new StringBuilder(prefix);
 
-        final List<Corpus> parts = CrossValidationHelper.split(corpus, crossValidation);
+                try {
+                    final Corpus testCorpus = plan.testCorpus(fold);
+                    final Corpus trainingCorpus = plan.trainingCorpus(fold, testCorpus);
+                    final SortedMap<Integer, Corpus> trainingPartitions = CrossValidationHelper.buildTrainingPartitions(partitions, testCorpus.partition(timeSpan));
 
-        log(Level.FINE, "\tSplit input corpus to " + parts.size() + " parts");
+                    log(out, Level.FINE, "\n\tBuilt training and test corpuses");
 
-        for (Corpus testCorpus : parts) {
+                    runSingle(testCorpus, trainingCorpus, trainingPartitions, out);
+                } finally {
+                    permits.release();
+                }
 
-            log(Level.FINE, "\n\tBuilt training and test corpuses");
+                return out.toString();
+            }
+        };
+    }
 
-            final Corpus trainingCorpus = CrossValidationHelper.buildTrainingCorpus(parts, testCorpus);
-            final TimeSpan timeSpan = new TimeSpan((Calendar) corpus.getStartDate().clone(), timespanLength);
+    /**
+     * Prints the logs of finished folds from the head of the queue, stopping at the first unfinished fold
+     * unless told to wait for it.
+     */
+    private void printFinished(final Deque<Future<String>> pending, final boolean wait) throws InterruptedException, ExecutionException {
 
-            runSingle(testCorpus, trainingCorpus, timeSpan);
+        while (!pending.isEmpty() && (wait || pending.peekFirst().isDone())) {
+            System.out.print(pending.pollFirst().get());
         }
     }
 
-    private void runSingle(final Corpus testCorpus, final Corpus trainingCorpus, final TimeSpan timeSpan) {
+    private void runSingle(final Corpus testCorpus, final Corpus trainingCorpus, final SortedMap<Integer, Corpus> partitions, final StringBuilder out) {
 
-        log(Level.FINE, "\tTest corpus is " +
+        log(out, Level.FINE, "\tTest corpus is " +
                 testCorpus.getDocuments().size() +
                 " documents, training corpus is " +
                 trainingCorpus.getDocuments().size() +
                 " documents.");
 
-        final List<Corpus> timePartitions = new ArrayList<>();
-
-        trainingCorpus.refreshStats();
-        testCorpus.refreshStats();
-        log(Level.FINE, "\tRefreshed corpus stats.");
-
-        log(Level.FINE, "\tBuilding time partitions.");
-        log(Level.FINE, "\t\tTime partition size is " + timespanLength.name());
+        log(out, Level.FINE, "\tBuilding time partitions.");
+        log(out, Level.FINE, "\t\tTime partition size is " + timespanLength.name());
 
-        final Calendar startDate = (Calendar) trainingCorpus.getStartDate().clone();
-        final Calendar endDate = (Calendar) trainingCorpus.getEndDate().clone();
+        log(out, Level.FINE, "\t\tStart date is " + print(trainingCorpus.getStartDay()));
+        log(out, Level.FINE, "\t\tEnd date is " + print(trainingCorpus.getEndDay()));
 
-        log(Level.FINE, "\t\tStart date is " + print(startDate));
-        log(Level.FINE, "\t\tEnd date is " + print(endDate));
+        final List<Corpus> timePartitions = new ArrayList<>(partitions.values());
 
-        while (!timeSpan.getStart().after(endDate)) {
-            final Corpus timePartition = trainingCorpus.getTimePartition(timeSpan.getStart(), timeSpan.getEnd());
+        if (!partitions.isEmpty()) {
+            for (int i = partitions.firstKey(); i <= partitions.lastKey(); i++) {
+                final Corpus timePartition = partitions.get(i);
 
-            if (!timePartition.getDocuments().isEmpty()) {
-                log(Level.FINE, "\t\t\tCreated time partition from " + print(timePartition.getStartDate()) + " to " + print(timePartition.getEndDate()) + " containing " + timePartition.getDocuments().size() + " documents.");
-                timePartitions.add(timePartition);
-            } else {
-                log(Level.FINE, "\t\t\tPartition was empty, skipping.");
+                if (timePartition != null) {
+                    log(out, Level.FINE, "\t\t\tCreated time partition from " + print(timePartition.getStartDay()) + " to " + print(timePartition.getEndDay()) + " containing " + timePartition.getDocuments().size() + " documents.");
+                } else {
+                    log(out, Level.FINE, "\t\t\tPartition was empty, skipping.");
+                }
             }
-
-            timeSpan.advance();
         }
 
         final Nllr nllr = new Nllr(trainingCorpus);
+        final NllrModel model = nllr.compile(timePartitions);
 
         int correct = 0;
         int wrong = 0;
 
-        log(Level.FINE, "\tRunning NLLR over test corpus.");
+        log(out, Level.FINE, "\tRunning NLLR over test corpus.");
 
-        for (Document document : testCorpus.getDocuments()) {
+        final List<Document> documents = testCorpus.getDocuments();
+        final Corpus[] resultCorpora = new Corpus[documents.size()];
+        final double[] resultNllrs = new double[documents.size()];
 
-            final Object[] argMaxArgs = {document};
+        classify(documents, nllr, model, resultCorpora, resultNllrs);
 
-            final Argmax.Result<Corpus> result = new Argmax<Corpus>().single(nllr, timePartitions, argMaxArgs);
+        for (int i = 0; i < documents.size(); i++) {
 
-            final Corpus resultCorpus = result.getArgument();
-            final double resultNllr = result.getValue();
+            final Document document = documents.get(i);
+            final Corpus resultCorpus = resultCorpora[i];
 
-            log(Level.FINER, result(document, resultCorpus, resultNllr));
+            log(out, Level.FINER, result(document, resultCorpus, resultNllrs[i]));
 
-            if (document.getDate() != null && resultCorpus.getEndDate() != null && resultCorpus.getStartDate() != null) {
-                if (!document.getDate().before(resultCorpus.getStartDate()) && !document.getDate().after(resultCorpus.getEndDate())) {
+            if (document.hasDate() && resultCorpus.getStartDay() != EpochDay.NONE) {
+                if (document.getEpochDay() >= resultCorpus.getStartDay() && document.getEpochDay() <= resultCorpus.getEndDay()) {
                     correct++;
                 } else {
                     wrong++;
@@ -138,24 +273,70 @@ public class Process {
             }
         }
 
-        log(Level.INFO, "\tCorrect: " + correct + ", Wrong:" + wrong + ", Other: " + (testCorpus.getDocuments().size() - correct - wrong));
+        log(out, Level.INFO, "\tCorrect: " + correct + ", Wrong:" + wrong + ", Other: " + (testCorpus.getDocuments().size() - correct - wrong));
+    }
+
+    /**
+     * Classifies documents into their best time partitions, using as many threads as configured.
+     * Nllr and NllrModel are only read while classifying, so documents can be scored concurrently. Every
+     * document writes only its own slot of the result arrays, which keeps the results in input order.
+     */
+    private void classify(final List<Document> documents, final Nllr nllr, final NllrModel model, final Corpus[] resultCorpora, final double[] resultNllrs) {
+
+        final AtomicInteger next = new AtomicInteger();
+
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                for (int i = next.getAndIncrement(); i < documents.size(); i = next.getAndIncrement()) {
+                    final Argmax.Result<Corpus> result = model.best(nllr.prepare(documents.get(i)));
+                    resultCorpora[i] = result.getArgument();
+                    resultNllrs[i] = result.getValue();
+                }
+            }
+        };
+
+        if (threads == 1) {
+            worker.run();
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(worker));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while classifying documents", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Classifying documents failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     private String result(final Document document, final Corpus resultCorpus, final double resultNllr) {
 
         String docDate = "UNKNOWN";
-        if (document.getDate() != null) {
-            docDate = dateFormat.format(document.getDate().getTime());
+        if (document.hasDate()) {
+            docDate = print(document.getEpochDay());
         }
 
         String corpStartDate = "UNKNOWN";
-        if (resultCorpus != null && resultCorpus.getStartDate() != null) {
-            corpStartDate = dateFormat.format(resultCorpus.getStartDate().getTime());
+        if (resultCorpus != null && resultCorpus.getStartDay() != EpochDay.NONE) {
+            corpStartDate = print(resultCorpus.getStartDay());
         }
 
         String corpEndDate = "UNKNOWN";
-        if (resultCorpus != null && resultCorpus.getEndDate() != null) {
-            corpEndDate = dateFormat.format(resultCorpus.getEndDate().getTime());
+        if (resultCorpus != null && resultCorpus.getEndDay() != EpochDay.NONE) {
+            corpEndDate = print(resultCorpus.getEndDay());
         }
 
         final StringBuilder out = new StringBuilder();
@@ -172,9 +353,12 @@ public class Process {
         return out.toString();
     }
 
-    private String print(final Calendar calendar) {
+    private String print(final int epochDay) {
 
-        return dateFormat.format(calendar.getTime());
+        // SimpleDateFormat is not thread-safe, and folds may be logging concurrently
+        synchronized (dateFormat) {
+            return dateFormat.format(EpochDay.toCalendar(epochDay).getTime());
+        }
     }
 
     private void log(final Level level, final String log) {
@@ -182,4 +366,10 @@ public class Process {
             System.out.println(log);
         }
     }
+
+    private void log(final StringBuilder out, final Level level, final String log) {
+        if (level.intValue() >= loggingLevel.intValue()) {
+            out.append(log).append('\n');
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package loez.nllr.algorithm;
+
+/**
+ * Adapts a legacy Algorithm to the Scorer interface.
+ * The context is the array of constants, and the argument is passed to the algorithm as args[0] followed by
+ * the constants. Owns its argument array, so an instance must not be shared between threads.
+ * @author ljleppan@cs
+ * @param <T> Type of the argument
+ */
+class AlgorithmScorer<T> implements Scorer<T, Object[]> {
+
+    private final Algorithm algorithm;
+    private final Object[] argList;
+
+    /**
+     * Creates a new adapter.
+     * @param algorithm         The algorithm
+     * @param constantsLength   Length of the constants arrays that will be given as the context
+     */
+    AlgorithmScorer(final Algorithm algorithm, final int constantsLength) {
+
+        this.algorithm = algorithm;
+        this.argList = new Object[constantsLength + 1];
+    }
+
+    @Override
+    public double score(final T argument, final Object[] constants) {
+
+        argList[0] = argument;
+        System.arraycopy(constants, 0, argList, 1, constants.length);
+
+        return algorithm.calculate(argList);
+    }
+}
@@ -57,28 +57,38 @@ public class Argmax<T> {
      */
     public Result<T> single(final Algorithm algorithm, final List<T> args, final Object[] constants) {
 
-        final Object[] argList = new Object[constants.length + 1];
-        System.arraycopy(constants, 0, argList, 1, constants.length);
+        return single(new AlgorithmScorer<T>(algorithm, constants.length), args, constants);
+    }
 
-        argList[0] = args.get(0);
+    /**
+     * Calculates argmax for given scorer and arguments.
+     * On ties, the argument earliest in args wins.
+     * @param <C>       Type of the context
+     * @param scorer    The scorer
+     * @param args      A list of changing arguments
+     * @param context   The context passed to every call of the scorer
+     * @return          The best argument and its score
+     */
+    public <C> Result<T> single(final Scorer<? super T, C> scorer, final List<T> args, final C context) {
 
-        double maxVal = algorithm.calculate(argList);
+        double maxVal = scorer.score(args.get(0), context);
         T maxArg = args.get(0);
 
         for (int i = 1; i < args.size(); i++) {
-            argList[0] = args.get(i);
-            final double result = algorithm.calculate(argList);
+            final T arg = args.get(i);
+            final double result = scorer.score(arg, context);
             if (maxVal < result) {
                 maxVal = result;
-                maxArg = args.get(i);
+                maxArg = arg;
             }
         }
 
-        return new Result(maxArg, maxVal);
+        return new Result<>(maxArg, maxVal);
     }
 
     /**
      * Calculates argmax for given algorithm and arguments, returning AMOUNT highest arguments.
+     * Among arguments with equal values, the ones earlier in args come first.
      * @param algorithm The algorithm
      * @param amount    Number of results to return
      * @param args      Arguments to iterate over
@@ -87,43 +97,157 @@ public class Argmax<T> {
      */
     public List<Result<T>> multiple(final Algorithm algorithm, final int amount, final List<T> args, final Object[] constants) {
 
-        final List<Result<T>> results = new ArrayList<>();
+        return multiple(new AlgorithmScorer<T>(algorithm, constants.length), amount, args, constants);
+    }
 
-        final Object[] argList = new Object[constants.length + 1];
-        System.arraycopy(constants, 0, argList, 1, constants.length);
+    /**
+     * Calculates argmax for given scorer and arguments, returning AMOUNT highest arguments.
+     * Among arguments with equal values, the ones earlier in args come first.
+     * @param <C>       Type of the context
+     * @param scorer    The scorer
+     * @param amount    Number of results to return
+     * @param args      Arguments to iterate over
+     * @param context   The context passed to every call of the scorer
+     * @return          A list of the AMOUNT best results
+     */
+    public <C> List<Result<T>> multiple(final Scorer<? super T, C> scorer, final int amount, final List<T> args, final C context) {
 
-        for (T arg : args) {
+        final TopK selection = new TopK(Math.min(amount, args.size()));
+        multiple(scorer, args, context, selection);
 
-            argList[0] = arg;
-            final double result = algorithm.calculate(argList);
+        final int[] indices = new int[selection.size()];
+        final double[] values = new double[selection.size()];
+        selection.drain(indices, values);
 
-            if (results.size() < amount) {
-                results.add(new Result(arg, result));
-                sort(results);
-            } else if (results.get(amount - 1).getValue() < result) {
-                results.remove(amount - 1);
-                results.add(new Result(arg, result));
-                sort(results);
-            }
+        final List<Result<T>> results = new ArrayList<>(indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            results.add(new Result<>(args.get(indices[i]), values[i]));
         }
 
         return results;
     }
 
+    /**
+     * Calculates argmax for given algorithm and arguments, returning the positions of the AMOUNT highest arguments.
+     * Unlike multiple(), creates no Result objects.
+     * @param algorithm The algorithm
+     * @param amount    Number of results to return
+     * @param args      Arguments to iterate over
+     * @param constants The constants of the algorithm call
+     * @return          Positions in args of the AMOUNT best arguments, best first
+     */
+    public int[] multipleIndices(final Algorithm algorithm, final int amount, final List<T> args, final Object[] constants) {
+
+        return multipleIndices(new AlgorithmScorer<T>(algorithm, constants.length), amount, args, constants);
+    }
+
+    /**
+     * Calculates argmax for given scorer and arguments, returning the positions of the AMOUNT highest arguments.
+     * @param <C>       Type of the context
+     * @param scorer    The scorer
+     * @param amount    Number of results to return
+     * @param args      Arguments to iterate over
+     * @param context   The context passed to every call of the scorer
+     * @return          Positions in args of the AMOUNT best arguments, best first
+     */
+    public <C> int[] multipleIndices(final Scorer<? super T, C> scorer, final int amount, final List<T> args, final C context) {
+
+        final TopK selection = new TopK(Math.min(amount, args.size()));
+        multiple(scorer, args, context, selection);
+
+        return selection.drainIndices();
+    }
+
+    /**
+     * Calculates argmax for given algorithm and arguments into a selector, which decides the amount of results.
+     * The selector is cleared first and afterwards holds the positions in args of the best arguments.
+     * @param algorithm The algorithm
+     * @param args      Arguments to iterate over
+     * @param constants The constants of the algorithm call
+     * @param selection The selector to fill
+     */
+    public void multiple(final Algorithm algorithm, final List<T> args, final Object[] constants, final TopK selection) {
+
+        multiple(new AlgorithmScorer<T>(algorithm, constants.length), args, constants, selection);
+    }
+
+    /**
+     * Calculates argmax for given scorer and arguments into a selector, which decides the amount of results.
+     * The selector is cleared first and afterwards holds the positions in args of the best arguments.
+     * Reusing the selector avoids all allocation.
+     * @param <C>       Type of the context
+     * @param scorer    The scorer
+     * @param args      Arguments to iterate over
+     * @param context   The context passed to every call of the scorer
+     * @param selection The selector to fill
+     */
+    public <C> void multiple(final Scorer<? super T, C> scorer, final List<T> args, final C context, final TopK selection) {
 
-    private void sort(final List<Result<T>> results) {
+        selection.clear();
 
-        for (int i = 1; i < results.size(); i++) {
+        for (int i = 0; i < args.size(); i++) {
+            selection.offer(i, scorer.score(args.get(i), context));
+        }
+    }
 
-            final Result x = results.get(i);
+    /**
+     * Calculates argmax for given scorer and primitive int arguments.
+     * On ties, the argument earliest in args wins.
+     * @param <C>       Type of the context
+     * @param scorer    The scorer
+     * @param args      The changing arguments, must not be empty
+     * @param context   The context passed to every call of the scorer
+     * @return          Position in args of the best argument
+     */
+    public static <C> int singleIndex(final IntScorer<C> scorer, final int[] args, final C context) {
+
+        int maxIndex = 0;
+        double maxVal = scorer.score(args[0], context);
 
-            int j = i;
-            while (j > 0 && results.get(j - 1).getValue() < x.getValue()) {
-                results.set(j, results.get(j - 1));
-                j = j - 1;
+        for (int i = 1; i < args.length; i++) {
+            final double result = scorer.score(args[i], context);
+            if (maxVal < result) {
+                maxVal = result;
+                maxIndex = i;
             }
+        }
+
+        return maxIndex;
+    }
+
+    /**
+     * Calculates argmax for given scorer and primitive int arguments, returning the positions of the AMOUNT highest arguments.
+     * Among arguments with equal values, the ones earlier in args come first.
+     * @param <C>       Type of the context
+     * @param scorer    The scorer
+     * @param amount    Number of results to return
+     * @param args      The changing arguments
+     * @param context   The context passed to every call of the scorer
+     * @return          Positions in args of the AMOUNT best arguments, best first
+     */
+    public static <C> int[] multipleIndices(final IntScorer<C> scorer, final int amount, final int[] args, final C context) {
+
+        final TopK selection = new TopK(Math.min(amount, args.length));
+        multiple(scorer, args, context, selection);
+
+        return selection.drainIndices();
+    }
+
+    /**
+     * Calculates argmax for given scorer and primitive int arguments into a selector.
+     * The selector is cleared first and afterwards holds the positions in args of the best arguments.
+     * @param <C>       Type of the context
+     * @param scorer    The scorer
+     * @param args      The changing arguments
+     * @param context   The context passed to every call of the scorer
+     * @param selection The selector to fill
+     */
+    public static <C> void multiple(final IntScorer<C> scorer, final int[] args, final C context, final TopK selection) {
+
+        selection.clear();
 
-            results.set(j, x);
+        for (int i = 0; i < args.length; i++) {
+            selection.offer(i, scorer.score(args[i], context));
         }
     }
 }
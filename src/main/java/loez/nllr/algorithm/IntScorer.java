@@ -0,0 +1,18 @@
+package loez.nllr.algorithm;
+
+/**
+ * A typed scoring function for primitive int arguments, such as token ids or partition indices.
+ * @author ljleppan@cs
+ * @param <C> Type of the context
+ * @see Scorer
+ */
+public interface IntScorer<C> {
+
+    /**
+     * Scores an argument.
+     * @param argument  The argument
+     * @param context   The context
+     * @return          The score
+     */
+    double score(int argument, C context);
+}
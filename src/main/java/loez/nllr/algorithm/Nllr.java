@@ -1,9 +1,7 @@
 package loez.nllr.algorithm;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import loez.nllr.algorithm.Argmax.Result;
 import loez.nllr.domain.BagOfWords;
 import loez.nllr.domain.Corpus;
 import loez.nllr.domain.Document;
@@ -12,7 +10,7 @@ import loez.nllr.domain.Document;
  * An NLLR-calculator.
  * @author ljleppan@cs
  */
-public class Nllr implements Algorithm {
+public class Nllr implements Algorithm, Scorer<Corpus, PreparedQuery> {
 
     /**
      * A small near-zero constant that is used in place of zero to prevent divisions by zero.
@@ -35,35 +33,88 @@ public class Nllr implements Algorithm {
     /**
      * Calculates the NLLR-score for the Query document and the Candidate corpus.
      * The candidate corpus MUST be a sub-corpus of the corpus the NLLR-instance is tied to.
+     * When scoring the same query against several candidates, prefer prepare() and calculateNllr(PreparedQuery, Corpus).
      * @param query     The query document.
      * @param candidate The candidate corpus.
      * @return          The NLLR-score for the query document and the candidate corpus.
      */
     public double calculateNllr(final Document query, final Corpus candidate) {
 
+        return calculateNllr(prepare(query), candidate);
+    }
+
+    /**
+     * Calculates the NLLR-score for a prepared query and the Candidate corpus.
+     * The candidate corpus MUST be a sub-corpus of the corpus the NLLR-instance is tied to.
+     * @param query     The query, as prepared by this NLLR-calculator.
+     * @param candidate The candidate corpus.
+     * @return          The NLLR-score for the query and the candidate corpus.
+     */
+    public double calculateNllr(final PreparedQuery query, final Corpus candidate) {
+
         double nllr = 0;
 
-        final Object[] constants = {query, corpus};
-        final List tokens = new ArrayList<>(query.getUniqueTokens());
+        for (int i = 0; i < query.size(); i++) {
+
+            final double tokenProbCandidate = calculateTokenProbability(query.getTokenId(i), candidate);
+
+            nllr += query.getQueryProbability(i) * Math.log(tokenProbCandidate / query.getCorpusProbability(i));
+        }
+
+        return nllr;
+    }
+
+    /**
+     * Prepares a query document for scoring against candidate corpuses.
+     * Selects the query's tokens with the highest tf-idf scores and resolves their probabilities in the
+     * query and in the reference corpus. These only depend on the query, so the result can be reused for
+     * every candidate corpus.
+     * @param query The query document.
+     * @return      The prepared query.
+     */
+    public PreparedQuery prepare(final Document query) {
 
-        final List<Result<String>> results = new Argmax().multiple(
-                new Tfidf(),
-                NUMBER_OF_TOKENS_TO_ANALYZE,
-                tokens,
-                constants);
+        final int[] tokens = query.getUniqueTokenIds();
+        final int[] topIndices = Argmax.multipleIndices(new Tfidf(corpus), NUMBER_OF_TOKENS_TO_ANALYZE, tokens, query);
 
-        for (Result<String> result : results) {
+        final int[] topTokens = new int[topIndices.length];
+        final double[] queryProbabilities = new double[topIndices.length];
+        final double[] corpusProbabilities = new double[topIndices.length];
 
-            final String uniqueToken = result.getArgument();
+        for (int i = 0; i < topIndices.length; i++) {
 
-            final double tokenProbQuery = calculateTokenProbability(uniqueToken, query);
-            final double tokenProbCandidate = calculateTokenProbability(uniqueToken, candidate);
-            final double tokenProbCorpus = calculateTokenProbability(uniqueToken, corpus);
+            final int uniqueToken = tokens[topIndices[i]];
 
-            nllr += tokenProbQuery * Math.log(tokenProbCandidate / tokenProbCorpus);
+            topTokens[i] = uniqueToken;
+            queryProbabilities[i] = calculateTokenProbability(uniqueToken, query);
+            corpusProbabilities[i] = calculateTokenProbability(uniqueToken, corpus);
         }
 
-        return nllr;
+        return new PreparedQuery(query, topTokens, queryProbabilities, corpusProbabilities);
+    }
+
+    /**
+     * Calculates the NLLR-score for a prepared query and the Candidate corpus, for the Scorer interface.
+     * @param candidate The candidate corpus.
+     * @param query     The query, as prepared by this NLLR-calculator.
+     * @return          The NLLR-score for the query and the candidate corpus.
+     * @see #calculateNllr(loez.nllr.algorithm.PreparedQuery, loez.nllr.domain.Corpus)
+     */
+    @Override
+    public double score(final Corpus candidate, final PreparedQuery query) {
+
+        return calculateNllr(query, candidate);
+    }
+
+    /**
+     * Compiles a model that scores prepared queries against a fixed set of partitions with table lookups.
+     * Use when the same partitions are scored against many queries.
+     * @param partitions    Sub-corpuses of the corpus this NLLR-calculator is tied to.
+     * @return              The compiled model.
+     */
+    public NllrModel compile(final List<Corpus> partitions) {
+
+        return new NllrModel(this, corpus, partitions);
     }
 
     /**
@@ -75,7 +126,19 @@ public class Nllr implements Algorithm {
      */
     public double calculateTokenProbability(final String token, final BagOfWords bagOfWords) {
 
-        final double prob =  (double) bagOfWords.getFrequency(token) / bagOfWords.getTotalTokens();
+        return calculateTokenProbability(bagOfWords.getVocabulary().getId(token), bagOfWords);
+    }
+
+    /**
+     * Calculates the token probability for the given token id in the given BagOfWords.
+     * @param tokenId    Vocabulary id of the token.
+     * @param bagOfWords The BagOfWords
+     * @return           The probability of the token in the document.
+     * @see #calculateTokenProbability(java.lang.String, loez.nllr.domain.BagOfWords)
+     */
+    public double calculateTokenProbability(final int tokenId, final BagOfWords bagOfWords) {
+
+        final double prob =  (double) bagOfWords.getFrequency(tokenId) / bagOfWords.getTotalTokens();
 
         if (prob == 0) {
             return NONZERO;
@@ -86,6 +149,7 @@ public class Nllr implements Algorithm {
 
     /**
      * A wrapper of the nllr() method for the Algorithm interface.
+     * The query can be given either as a Document or as a PreparedQuery.
      * @param args  Arguments
      * @return      Result
      */
@@ -96,7 +160,12 @@ public class Nllr implements Algorithm {
             throw new IllegalArgumentException();
         }
 
-        if (args[1] instanceof Document && args[0] instanceof Corpus) {
+        if (args[1] instanceof PreparedQuery && args[0] instanceof Corpus) {
+            final PreparedQuery query = (PreparedQuery) args[1];
+            final Corpus candidate = (Corpus) args[0];
+
+            return calculateNllr(query, candidate);
+        } else if (args[1] instanceof Document && args[0] instanceof Corpus) {
             final Document query = (Document) args[1];
             final Corpus candidate = (Corpus) args[0];
 
@@ -0,0 +1,282 @@
+package loez.nllr.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import loez.nllr.algorithm.Argmax.Result;
+import loez.nllr.domain.Corpus;
+
+/**
+ * A compiled NLLR-model over a fixed set of partitions of a reference corpus.
+ * For every token of the reference corpus, stores a posting list of the partitions containing the token,
+ * ordered by partition index, together with log P(t|partition) - log P(t|corpus) for each of them, and the
+ * value used when the token does not appear in a partition.
+ * Scoring a prepared query is then a sum of table lookups weighted by the query probabilities, with no
+ * logarithms or divisions. A query can be scored against all partitions at once with one sequential scan
+ * of the posting list of each query token.
+ * The model is a snapshot: changes made to the corpuses after compiling are not reflected in it.
+ * @author ljleppan@cs
+ */
+public class NllrModel implements Algorithm, IntScorer<PreparedQuery> {
+
+    private static final int[] NO_PARTITIONS = new int[0];
+    private static final double[] NO_LOG_RATIOS = new double[0];
+
+    private final List<Corpus> partitions;
+    private final double[] unseenLogRatios;
+    private final int[][] postingPartitions;
+    private final double[][] postingLogRatios;
+
+    /**
+     * Compiles a new model.
+     * @param nllr          The NLLR-calculator tied to the reference corpus
+     * @param corpus        The reference corpus
+     * @param partitions    Sub-corpuses of the reference corpus
+     */
+    NllrModel(final Nllr nllr, final Corpus corpus, final List<Corpus> partitions) {
+
+        this.partitions = Collections.unmodifiableList(new ArrayList<>(partitions));
+
+        final int[] corpusTokens = corpus.getUniqueTokenIds();
+        final double logNonzero = Math.log(Nllr.NONZERO);
+
+        int maxTokenId = -1;
+        for (int tokenId : corpusTokens) {
+            maxTokenId = Math.max(maxTokenId, tokenId);
+        }
+
+        // Tokens missing from the reference corpus also have the probability NONZERO there, so their
+        // unseen log-ratio is zero, which is the default value of the array.
+        final double[] logCorpusProbabilities = new double[maxTokenId + 1];
+        this.unseenLogRatios = new double[maxTokenId + 1];
+        Arrays.fill(logCorpusProbabilities, logNonzero);
+
+        for (int tokenId : corpusTokens) {
+            logCorpusProbabilities[tokenId] = Math.log(nllr.calculateTokenProbability(tokenId, corpus));
+            unseenLogRatios[tokenId] = logNonzero - logCorpusProbabilities[tokenId];
+        }
+
+        this.postingPartitions = new int[maxTokenId + 1][];
+        this.postingLogRatios = new double[maxTokenId + 1][];
+        buildPostings(nllr, logCorpusProbabilities);
+    }
+
+    /**
+     * Calculates the NLLR-scores for a prepared query and every partition of the model.
+     * Walks the posting list of each query token once, adding to the scores of the partitions that contain it.
+     * Gives the same scores as calling score() for each partition, up to rounding, as the terms are summed
+     * in a different order.
+     * @param query The prepared query
+     * @return      The NLLR-scores, indexed by partition
+     */
+    public double[] scoreAll(final PreparedQuery query) {
+
+        final double[] scores = new double[partitions.size()];
+
+        // Every partition starts from the score it would get if it contained none of the query tokens
+        double unseenScore = 0;
+        for (int i = 0; i < query.size(); i++) {
+            unseenScore += query.getQueryProbability(i) * unseenLogRatio(query.getTokenId(i));
+        }
+        Arrays.fill(scores, unseenScore);
+
+        for (int i = 0; i < query.size(); i++) {
+
+            final int tokenId = query.getTokenId(i);
+
+            if (tokenId >= postingPartitions.length) {
+                continue;
+            }
+
+            final double queryProbability = query.getQueryProbability(i);
+            final double unseen = unseenLogRatios[tokenId];
+            final int[] postedPartitions = postingPartitions[tokenId];
+            final double[] postedLogRatios = postingLogRatios[tokenId];
+
+            for (int j = 0; j < postedPartitions.length; j++) {
+                scores[postedPartitions[j]] += queryProbability * (postedLogRatios[j] - unseen);
+            }
+        }
+
+        return scores;
+    }
+
+    /**
+     * Finds the partition with the highest NLLR-score for a prepared query.
+     * On ties, the partition with the lowest index wins.
+     * @param query The prepared query
+     * @return      The best partition and its score, or null if the model has no partitions
+     */
+    public Result<Corpus> best(final PreparedQuery query) {
+
+        if (partitions.isEmpty()) {
+            return null;
+        }
+
+        final double[] scores = scoreAll(query);
+
+        int best = 0;
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[best] < scores[i]) {
+                best = i;
+            }
+        }
+
+        return new Result<>(partitions.get(best), scores[best]);
+    }
+
+    /**
+     * Finds the partitions with the highest NLLR-scores for a prepared query.
+     * On ties, partitions with lower indices come first.
+     * @param query     The prepared query
+     * @param amount    Number of results to return
+     * @return          At most AMOUNT best partitions and their scores, best first
+     */
+    public List<Result<Corpus>> top(final PreparedQuery query, final int amount) {
+
+        final double[] scores = scoreAll(query);
+        final TopK selection = new TopK(Math.min(amount, scores.length));
+
+        for (int i = 0; i < scores.length; i++) {
+            selection.offer(i, scores[i]);
+        }
+
+        final int[] best = selection.drainIndices();
+        final List<Result<Corpus>> results = new ArrayList<>(best.length);
+
+        for (int index : best) {
+            results.add(new Result<>(partitions.get(index), scores[index]));
+        }
+
+        return results;
+    }
+
+    /**
+     * Calculates the NLLR-score for a prepared query and a partition of the model.
+     * The query must have been prepared by the NLLR-calculator that compiled this model.
+     * @param partition Index of the partition
+     * @param query     The prepared query
+     * @return          The NLLR-score for the query and the partition
+     */
+    @Override
+    public double score(final int partition, final PreparedQuery query) {
+
+        double nllr = 0;
+
+        for (int i = 0; i < query.size(); i++) {
+            final int tokenId = query.getTokenId(i);
+            nllr += query.getQueryProbability(i) * logRatio(partition, tokenId);
+        }
+
+        return nllr;
+    }
+
+    /**
+     * @return The number of partitions in the model
+     */
+    public int size() {
+
+        return partitions.size();
+    }
+
+    /**
+     * @param index Index of a partition
+     * @return      The partition
+     */
+    public Corpus getPartition(final int index) {
+
+        return partitions.get(index);
+    }
+
+    /**
+     * @return An unmodifiable list of the partitions, in index order
+     */
+    public List<Corpus> getPartitions() {
+
+        return partitions;
+    }
+
+    /**
+     * A wrapper of the score() method for the Algorithm interface.
+     * Expects the partition index as an Integer in args[0] and the PreparedQuery in args[1].
+     * @param args  Arguments
+     * @return      Result
+     */
+    @Override
+    public double calculate(final Object[] args) {
+
+        if (args.length != 2 || !(args[0] instanceof Integer) || !(args[1] instanceof PreparedQuery)) {
+            throw new IllegalArgumentException();
+        }
+
+        return score((Integer) args[0], (PreparedQuery) args[1]);
+    }
+
+    /**
+     * Builds the per-token posting lists, ordered by partition index.
+     * Token ids without postings share an empty list.
+     */
+    private void buildPostings(final Nllr nllr, final double[] logCorpusProbabilities) {
+
+        final int[] postingLengths = new int[postingPartitions.length];
+
+        for (Corpus partition : partitions) {
+            for (int tokenId : partition.getUniqueTokenIds()) {
+                postingLengths[tokenId]++;
+            }
+        }
+
+        for (int tokenId = 0; tokenId < postingLengths.length; tokenId++) {
+            if (postingLengths[tokenId] == 0) {
+                postingPartitions[tokenId] = NO_PARTITIONS;
+                postingLogRatios[tokenId] = NO_LOG_RATIOS;
+            } else {
+                postingPartitions[tokenId] = new int[postingLengths[tokenId]];
+                postingLogRatios[tokenId] = new double[postingLengths[tokenId]];
+            }
+        }
+
+        final int[] filled = new int[postingLengths.length];
+
+        for (int i = 0; i < partitions.size(); i++) {
+            final Corpus partition = partitions.get(i);
+
+            for (int tokenId : partition.getUniqueTokenIds()) {
+                final double logPartitionProbability = Math.log(nllr.calculateTokenProbability(tokenId, partition));
+                final int position = filled[tokenId];
+                postingPartitions[tokenId][position] = i;
+                postingLogRatios[tokenId][position] = logPartitionProbability - logCorpusProbabilities[tokenId];
+                filled[tokenId]++;
+            }
+        }
+    }
+
+    /**
+     * @return The log-ratio of the token in the partition, found by binary search in the posting list of the token
+     */
+    private double logRatio(final int partition, final int tokenId) {
+
+        if (tokenId >= postingPartitions.length) {
+            return 0;
+        }
+
+        final int position = Arrays.binarySearch(postingPartitions[tokenId], partition);
+
+        if (position < 0) {
+            return unseenLogRatios[tokenId];
+        }
+
+        return postingLogRatios[tokenId][position];
+    }
+
+    private double unseenLogRatio(final int tokenId) {
+
+        if (tokenId < unseenLogRatios.length) {
+            return unseenLogRatios[tokenId];
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,194 @@
+package loez.nllr.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import loez.nllr.algorithm.Argmax.Result;
+
+/**
+ * A parallel implementation of the argmax algorithm.
+ * Splits the arguments into ranges that are scored in a ForkJoinPool, each range selecting its own best
+ * arguments, and merges the per-range results. Ranges shorter than the threshold are scored sequentially.
+ * Ties resolve to the argument earliest in the list, exactly as in Argmax, so results do not depend on
+ * the parallelism. The scorer is called concurrently and must therefore be safe for concurrent use.
+ * @author ljleppan@cs
+ * @param <T> Type of the arguments
+ */
+public class ParallelArgmax<T> {
+
+    /**
+     * The default number of arguments below which a range is scored sequentially.
+     */
+    public static final int DEFAULT_THRESHOLD = 64;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Creates a new parallel argmax running in the given pool.
+     * @param pool      The pool to run in, shut down by the caller
+     * @param threshold Number of arguments below which a range is scored sequentially, at least 1
+     */
+    public ParallelArgmax(final ForkJoinPool pool, final int threshold) {
+
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        }
+
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a new parallel argmax running in the given pool, with the default threshold.
+     * @param pool  The pool to run in, shut down by the caller
+     */
+    public ParallelArgmax(final ForkJoinPool pool) {
+
+        this(pool, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Calculates argmax for given scorer and arguments.
+     * On ties, the argument earliest in args wins.
+     * @param <C>       Type of the context
+     * @param scorer    The scorer
+     * @param args      A list of changing arguments, must not be empty
+     * @param context   The context passed to every call of the scorer
+     * @return          The best argument and its score
+     */
+    public <C> Result<T> single(final Scorer<? super T, C> scorer, final List<T> args, final C context) {
+
+        if (args.isEmpty()) {
+            throw new IndexOutOfBoundsException("No arguments");
+        }
+
+        final Selection best = select(scorer, 1, args, context);
+
+        return new Result<>(args.get(best.indices[0]), best.values[0]);
+    }
+
+    /**
+     * Calculates argmax for given scorer and arguments, returning AMOUNT highest arguments.
+     * Among arguments with equal values, the ones earlier in args come first.
+     * @param <C>       Type of the context
+     * @param scorer    The scorer
+     * @param amount    Number of results to return
+     * @param args      Arguments to iterate over
+     * @param context   The context passed to every call of the scorer
+     * @return          A list of the AMOUNT best results
+     */
+    public <C> List<Result<T>> multiple(final Scorer<? super T, C> scorer, final int amount, final List<T> args, final C context) {
+
+        final Selection best = select(scorer, amount, args, context);
+
+        final List<Result<T>> results = new ArrayList<>(best.indices.length);
+        for (int i = 0; i < best.indices.length; i++) {
+            results.add(new Result<>(args.get(best.indices[i]), best.values[i]));
+        }
+
+        return results;
+    }
+
+    /**
+     * Calculates argmax for given scorer and arguments, returning the positions of the AMOUNT highest arguments.
+     * @param <C>       Type of the context
+     * @param scorer    The scorer
+     * @param amount    Number of results to return
+     * @param args      Arguments to iterate over
+     * @param context   The context passed to every call of the scorer
+     * @return          Positions in args of the AMOUNT best arguments, best first
+     */
+    public <C> int[] multipleIndices(final Scorer<? super T, C> scorer, final int amount, final List<T> args, final C context) {
+
+        return select(scorer, amount, args, context).indices;
+    }
+
+    private <C> Selection select(final Scorer<? super T, C> scorer, final int amount, final List<T> args, final C context) {
+
+        final int capacity = Math.min(amount, args.size());
+
+        return pool.invoke(new SelectTask<>(scorer, capacity, args, context, 0, args.size(), threshold));
+    }
+
+    /**
+     * The best arguments of a range, as positions in the argument list and their scores, best first.
+     */
+    private static final class Selection {
+
+        private final int[] indices;
+        private final double[] values;
+
+        private Selection(final TopK topK) {
+
+            indices = new int[topK.size()];
+            values = new double[topK.size()];
+            topK.drain(indices, values);
+        }
+    }
+
+    /**
+     * Selects the best arguments of a range, splitting it in halves until it is below the threshold.
+     */
+    private static final class SelectTask<T, C> extends RecursiveTask<Selection> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Scorer<? super T, C> scorer;
+        private final int amount;
+        private final transient List<T> args;
+        private final transient C context;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private SelectTask(final Scorer<? super T, C> scorer, final int amount, final List<T> args, final C context,
+                final int from, final int to, final int threshold) {
+
+            this.scorer = scorer;
+            this.amount = amount;
+            this.args = args;
+            this.context = context;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Selection compute() {
+
+            final TopK selection = new TopK(amount);
+
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    selection.offer(i, scorer.score(args.get(i), context));
+                }
+
+                return new Selection(selection);
+            }
+
+            final int middle = (from + to) >>> 1;
+            final SelectTask<T, C> left = new SelectTask<>(scorer, amount, args, context, from, middle, threshold);
+            final SelectTask<T, C> right = new SelectTask<>(scorer, amount, args, context, middle, to, threshold);
+
+            right.fork();
+            final Selection leftBest = left.compute();
+            final Selection rightBest = right.join();
+
+            // TopK orders equal values by index, so the merge does not depend on which half finished first
+            offerAll(selection, leftBest);
+            offerAll(selection, rightBest);
+
+            return new Selection(selection);
+        }
+
+        private static void offerAll(final TopK selection, final Selection partial) {
+
+            for (int i = 0; i < partial.indices.length; i++) {
+                selection.offer(partial.indices[i], partial.values[i]);
+            }
+        }
+    }
+}
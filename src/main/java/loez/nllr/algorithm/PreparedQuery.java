@@ -0,0 +1,86 @@
+package loez.nllr.algorithm;
+
+import loez.nllr.domain.Document;
+
+/**
+ * A query document prepared for NLLR-scoring against a reference corpus.
+ * Holds the query's most representative tokens together with their probabilities in the query
+ * and in the reference corpus, so that they need to be resolved only once per query instead of
+ * once per candidate corpus.
+ * @author ljleppan@cs
+ */
+public class PreparedQuery {
+
+    private final Document query;
+    private final int[] tokenIds;
+    private final double[] queryProbabilities;
+    private final double[] corpusProbabilities;
+
+    /**
+     * Creates a new prepared query.
+     * All arrays must be of equal length and share the same ordering.
+     * @param query                 The query document
+     * @param tokenIds              Vocabulary ids of the selected tokens of the query
+     * @param queryProbabilities    Probabilities of the tokens in the query document
+     * @param corpusProbabilities   Probabilities of the tokens in the reference corpus
+     */
+    PreparedQuery(final Document query, final int[] tokenIds, final double[] queryProbabilities, final double[] corpusProbabilities) {
+
+        this.query = query;
+        this.tokenIds = tokenIds;
+        this.queryProbabilities = queryProbabilities;
+        this.corpusProbabilities = corpusProbabilities;
+    }
+
+    /**
+     * @return The query document
+     */
+    public Document getQuery() {
+
+        return query;
+    }
+
+    /**
+     * @return The number of selected tokens
+     */
+    public int size() {
+
+        return tokenIds.length;
+    }
+
+    /**
+     * @param index Index of the selected token
+     * @return      The selected token
+     */
+    public String getToken(final int index) {
+
+        return query.getToken(tokenIds[index]);
+    }
+
+    /**
+     * @param index Index of the selected token
+     * @return      Vocabulary id, or local id in the query document, of the selected token
+     */
+    public int getTokenId(final int index) {
+
+        return tokenIds[index];
+    }
+
+    /**
+     * @param index Index of the selected token
+     * @return      Probability of the token in the query document
+     */
+    public double getQueryProbability(final int index) {
+
+        return queryProbabilities[index];
+    }
+
+    /**
+     * @param index Index of the selected token
+     * @return      Probability of the token in the reference corpus
+     */
+    public double getCorpusProbability(final int index) {
+
+        return corpusProbabilities[index];
+    }
+}
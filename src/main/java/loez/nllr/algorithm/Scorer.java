@@ -0,0 +1,19 @@
+package loez.nllr.algorithm;
+
+/**
+ * A typed scoring function.
+ * Scores a changing argument within a context that stays the same over many calls.
+ * @author ljleppan@cs
+ * @param <A> Type of the argument
+ * @param <C> Type of the context
+ */
+public interface Scorer<A, C> {
+
+    /**
+     * Scores an argument.
+     * @param argument  The argument
+     * @param context   The context
+     * @return          The score
+     */
+    double score(A argument, C context);
+}
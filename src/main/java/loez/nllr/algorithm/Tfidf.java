@@ -7,7 +7,26 @@ import loez.nllr.domain.Document;
  *
  * @author ljleppan@cs
  */
-public class Tfidf implements Algorithm {
+public class Tfidf implements Algorithm, IntScorer<Document> {
+
+    private final Corpus reference;
+
+    /**
+     * Creates a tf-idf calculator for the legacy Algorithm interface, where the reference corpus is given in the arguments.
+     */
+    public Tfidf() {
+
+        this(null);
+    }
+
+    /**
+     * Creates a tf-idf calculator tied to a reference corpus, for scoring token ids of query documents.
+     * @param reference The reference corpus
+     */
+    public Tfidf(final Corpus reference) {
+
+        this.reference = reference;
+    }
 
     /**
      * Calculates a tf-idf (text frequency - inverse document frequency) score.
@@ -28,8 +47,21 @@ public class Tfidf implements Algorithm {
      */
     public static double tfidf(final String token, final Document query, final Corpus reference) {
 
-        final int tf = query.getFrequency(token);
-        final double idf = idf(reference, token);
+        return tfidf(reference.getVocabulary().getId(token), query, reference);
+    }
+
+    /**
+     * Calculates a tf-idf score for a token given as a vocabulary id.
+     * @param tokenId   Vocabulary id of the token for which the tf-idf score is calculated
+     * @param query     The text, as an instance of Document
+     * @param reference The document, as an instance of Corpus
+     * @return          A tf-idf score for the given parameters, as a double
+     * @see #tfidf(java.lang.String, loez.nllr.domain.Document, loez.nllr.domain.Corpus)
+     */
+    public static double tfidf(final int tokenId, final Document query, final Corpus reference) {
+
+        final int tf = query.getFrequency(tokenId);
+        final double idf = idf(reference, tokenId);
 
         return tf * idf;
     }
@@ -42,14 +74,42 @@ public class Tfidf implements Algorithm {
      */
     public static double idf(final Corpus reference, final String token) {
 
+        return idf(reference, reference.getVocabulary().getId(token));
+    }
+
+    /**
+     * Calculate the idf (Inverse Document Frequency) of a token given as a vocabulary id.
+     * @param reference     The corpus as a collection of documents
+     * @param tokenId       Vocabulary id of the token
+     * @return              idf score for the token and the corpus
+     */
+    public static double idf(final Corpus reference, final int tokenId) {
+
         final int totalDocs = reference.getDocuments().size();
-        final int docsContainingTerm = reference.numOfDocsContainingToken(token);
+        final int docsContainingTerm = reference.numOfDocsContainingToken(tokenId);
 
         return Math.log((double) totalDocs / docsContainingTerm);
     }
 
+    /**
+     * Calculates the tf-idf score of a token in a query document against the reference corpus of this calculator.
+     * @param tokenId   Vocabulary id of the token
+     * @param query     The query document
+     * @return          A tf-idf score for the given parameters
+     */
+    @Override
+    public double score(final int tokenId, final Document query) {
+
+        if (reference == null) {
+            throw new IllegalStateException("No reference corpus");
+        }
+
+        return tfidf(tokenId, query, reference);
+    }
+
     /**
      * A wrapper of tfidf() for the Algorithm interface.
+     * The token can be given either as a String or as an Integer vocabulary id.
      * @param args  Arguments
      * @return      Result
      */
@@ -68,6 +128,14 @@ public class Tfidf implements Algorithm {
 
             return tfidf(token, query, reference);
 
+        } else if (args[0] instanceof Integer && args[1] instanceof Document && args[2] instanceof Corpus) {
+
+            final int tokenId = (Integer) args[0];
+            final Document query = (Document) args[1];
+            final Corpus reference = (Corpus) args[2];
+
+            return tfidf(tokenId, query, reference);
+
         } else {
             throw new IllegalArgumentException();
         }
@@ -0,0 +1,187 @@
+package loez.nllr.algorithm;
+
+/**
+ * Selects the K highest values from a stream of (index, value) pairs.
+ * Keeps the current best values in a bounded binary min-heap over primitive arrays, so offering a value
+ * allocates nothing and costs O(log K). The selector can be reused with clear().
+ * Among equal values, lower indices are preferred.
+ * Not safe for concurrent use.
+ * @author ljleppan@cs
+ */
+public class TopK {
+
+    private final int[] indices;
+    private final double[] values;
+    private int size;
+
+    /**
+     * Creates a new selector.
+     * @param capacity  The number of values to select, K
+     */
+    public TopK(final int capacity) {
+
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+
+        this.indices = new int[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Offers a value to the selector.
+     * @param index An index identifying the value, such as its position in the input
+     * @param value The value
+     * @return      True if the value is currently among the K best
+     */
+    public boolean offer(final int index, final double value) {
+
+        if (size < indices.length) {
+            indices[size] = index;
+            values[size] = value;
+            siftUp(size);
+            size++;
+
+            return true;
+        }
+
+        if (size == 0 || !isBetter(index, value, indices[0], values[0])) {
+            return false;
+        }
+
+        indices[0] = index;
+        values[0] = value;
+        siftDown(0, size);
+
+        return true;
+    }
+
+    /**
+     * @return The number of values currently selected
+     */
+    public int size() {
+
+        return size;
+    }
+
+    /**
+     * @return The number of values to select, K
+     */
+    public int capacity() {
+
+        return indices.length;
+    }
+
+    /**
+     * Removes all selected values.
+     */
+    public void clear() {
+
+        size = 0;
+    }
+
+    /**
+     * Writes the selected values best first into the given arrays, and clears the selector.
+     * @param indexTarget   An array of at least size() elements for the indices
+     * @param valueTarget   An array of at least size() elements for the values, or null if not needed
+     * @return              The number of values written
+     */
+    public int drain(final int[] indexTarget, final double[] valueTarget) {
+
+        final int count = size;
+
+        // Heapsort: the worst remaining value is always at the root of the heap
+        for (int last = count - 1; last >= 0; last--) {
+            indexTarget[last] = indices[0];
+            if (valueTarget != null) {
+                valueTarget[last] = values[0];
+            }
+
+            indices[0] = indices[last];
+            values[0] = values[last];
+            siftDown(0, last);
+        }
+
+        size = 0;
+
+        return count;
+    }
+
+    /**
+     * Returns the selected indices best first, and clears the selector.
+     * @return A new array of the selected indices
+     */
+    public int[] drainIndices() {
+
+        final int[] result = new int[size];
+        drain(result, null);
+
+        return result;
+    }
+
+    /**
+     * @return True if the first pair should be ranked before the second
+     */
+    private static boolean isBetter(final int index, final double value, final int otherIndex, final double otherValue) {
+
+        if (value != otherValue) {
+            return value > otherValue;
+        }
+
+        return index < otherIndex;
+    }
+
+    private void siftUp(final int position) {
+
+        int child = position;
+
+        while (child > 0) {
+            final int parent = (child - 1) / 2;
+
+            if (!isBetter(indices[parent], values[parent], indices[child], values[child])) {
+                return;
+            }
+
+            swap(parent, child);
+            child = parent;
+        }
+    }
+
+    private void siftDown(final int position, final int heapSize) {
+
+        int parent = position;
+
+        while (true) {
+            final int left = 2 * parent + 1;
+
+            if (left >= heapSize) {
+                return;
+            }
+
+            int worst = left;
+            final int right = left + 1;
+
+            if (right < heapSize && isBetter(indices[left], values[left], indices[right], values[right])) {
+                worst = right;
+            }
+
+            if (!isBetter(indices[parent], values[parent], indices[worst], values[worst])) {
+                return;
+            }
+
+            swap(parent, worst);
+            parent = worst;
+        }
+    }
+
+    private void swap(final int a, final int b) {
+
+        final int index = indices[a];
+        indices[a] = indices[b];
+        indices[b] = index;
+
+        final double value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
@@ -20,14 +20,36 @@ public interface BagOfWords {
      */
     int getFrequency(String token);
 
+    /**
+     * @param tokenId   Vocabulary id of a token in the bag.
+     * @return          The frequency of queried token in bag.
+     */
+    int getFrequency(int tokenId);
+
     /**
      * @return  A HashSet containing all unique tokens found in the bag.
      */
     Set<String> getUniqueTokens();
 
+    /**
+     * @return  Vocabulary ids of all unique tokens found in the bag. Order is not specified.
+     */
+    int[] getUniqueTokenIds();
+
     /**
      * @param token A token
      * @return      True if token is present in the bag, false if not.
      */
     boolean containsToken(String token);
+
+    /**
+     * @param tokenId   Vocabulary id of a token
+     * @return          True if token is present in the bag, false if not.
+     */
+    boolean containsToken(int tokenId);
+
+    /**
+     * @return The vocabulary that maps the tokens of the bag to ids.
+     */
+    Vocabulary getVocabulary();
 }
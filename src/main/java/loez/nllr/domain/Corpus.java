@@ -1,40 +1,87 @@
 package loez.nllr.domain;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import loez.nllr.util.IntCountMap;
 
 /**
  * Corpus is a collection of Documents.
+ * Statistics are kept up to date as documents are added and removed through the corpus.
+ * Changes made directly to the list returned by getDocuments() require a call to refreshStats().
  * @author ljleppan@cs
  */
 public class Corpus implements BagOfWords {
 
+    /**
+     * The dated documents of a corpus in chronological order, with their dates as sort keys.
+     */
+    private static final class DateIndex {
+
+        private final Document[] documents;
+        private final int[] keys;
+
+        private DateIndex(final Document[] documents, final int[] keys) {
+
+            this.documents = documents;
+            this.keys = keys;
+        }
+    }
+
     private List<Document> documents = new ArrayList<>();
-    private Calendar startDate;
-    private Calendar endDate;
+    private volatile DateIndex dateIndex;
+    private int startDate = EpochDay.NONE;
+    private int endDate = EpochDay.NONE;
     private int totalTokens;
-    private Map<String, Integer> tokenFrequensies;
-    private Map<String, Integer> numOfDocumentsContainingToken;
+    private final Vocabulary vocabulary;
+    private IntCountMap tokenFrequensies;
+    private IntCountMap numOfDocumentsContainingToken;
 
     /**
      * Creates a new corpus from a list of documents.
-     * @param documents The documents the corpus is comprised of.
+     * The documents must use the given vocabulary.
+     * @param documents     The documents the corpus is comprised of.
+     * @param vocabulary    The vocabulary used for mapping tokens to ids.
      */
-    public Corpus(final List<Document> documents) {
+    public Corpus(final List<Document> documents, final Vocabulary vocabulary) {
 
         if (documents != null) {
             this.documents = documents;
         }
 
+        this.vocabulary = vocabulary;
+
         refreshStats();
     }
 
+    /**
+     * Creates a new corpus from a list of documents, using the default vocabulary.
+     * @param documents The documents the corpus is comprised of.
+     */
+    public Corpus(final List<Document> documents) {
+
+        this(documents, Vocabulary.getDefault());
+    }
+
+    /**
+     * Create an empty corpus, using the given vocabulary.
+     * @param vocabulary    The vocabulary used for mapping tokens to ids.
+     */
+    public Corpus(final Vocabulary vocabulary) {
+
+        this(new ArrayList<Document>(), vocabulary);
+    }
+
     /**
      * Create an empty corpus.
      */
@@ -43,17 +90,84 @@ public class Corpus implements BagOfWords {
         this(new ArrayList<Document>());
     }
 
+    /**
+     * Creates a new corpus with precomputed stats.
+     * The dates are computed from the documents.
+     */
+    private Corpus(final List<Document> documents, final Vocabulary vocabulary, final int totalTokens,
+            final IntCountMap tokenFrequensies, final IntCountMap numOfDocumentsContainingToken) {
+
+        this.documents = documents;
+        this.vocabulary = vocabulary;
+        this.totalTokens = totalTokens;
+        this.tokenFrequensies = tokenFrequensies;
+        this.numOfDocumentsContainingToken = numOfDocumentsContainingToken;
+
+        refreshDates();
+    }
+
+    /**
+     * Creates a new corpus of the documents of this corpus that are not in the given sub-corpus.
+     * The stats are derived by subtracting the sub-corpus's stats from this corpus's stats, instead of
+     * recounting the remaining documents, so the cost depends on the vocabularies rather than on the
+     * amount of tokens. Documents are matched by identity, and every document of the sub-corpus must
+     * appear in this corpus exactly once.
+     * @param part  A sub-corpus of this corpus
+     * @return      A new corpus of the remaining documents, in the order of this corpus
+     */
+    public Corpus difference(final Corpus part) {
+
+        final Set<Document> excluded = Collections.newSetFromMap(new IdentityHashMap<Document, Boolean>());
+        excluded.addAll(part.documents);
+
+        final List<Document> remaining = new ArrayList<>(Math.max(0, documents.size() - part.documents.size()));
+        for (Document document : documents) {
+            if (!excluded.contains(document)) {
+                remaining.add(document);
+            }
+        }
+
+        return difference(part, remaining);
+    }
+
+    /**
+     * Creates a new corpus of the given remaining documents, deriving its stats by subtracting a sub-corpus
+     * from this corpus. The remaining documents must be exactly the documents of this corpus that are not in
+     * the sub-corpus. The list is used as is, without copying.
+     * @param part      A sub-corpus of this corpus
+     * @param remaining The documents of this corpus that are not in the sub-corpus
+     * @return          A new corpus of the remaining documents
+     * @see #difference(loez.nllr.domain.Corpus)
+     */
+    public Corpus difference(final Corpus part, final List<Document> remaining) {
+
+        final IntCountMap frequencies = new IntCountMap(tokenFrequensies);
+        frequencies.addAll(part.tokenFrequensies, -1);
+
+        final IntCountMap documentFrequencies = new IntCountMap(numOfDocumentsContainingToken);
+        documentFrequencies.addAll(part.numOfDocumentsContainingToken, -1);
+
+        return new Corpus(remaining, vocabulary, totalTokens - part.totalTokens, frequencies, documentFrequencies);
+    }
+
     /**
      * Add a document to the corpus.
+     * Only the added document is counted into the corpus stats.
      * @param document  The document to be added.
      */
     public void add(final Document document) {
 
         if (document != null) {
             documents.add(document);
+            addStats(document);
+            dateIndex = null;
         }
     }
 
+    /**
+     * Add several documents to the corpus.
+     * @param documents The documents to be added.
+     */
     public void addAll(final Collection<Document> documents) {
 
         for (Document document : documents) {
@@ -77,11 +191,21 @@ public class Corpus implements BagOfWords {
 
     /**
      * Removes a document from the corpus.
+     * Only the removed document is subtracted from the corpus stats. The start and end dates are
+     * recalculated only if the removed document was dated on either of them.
      * @param index The index of the document.
      */
     public void remove(final int index) {
 
-        documents.remove(index);
+        final Document document = documents.remove(index);
+        dateIndex = null;
+
+        totalTokens -= document.getTotalTokens();
+        updateFrequencies(document, -1);
+
+        if (document.hasDate() && (document.getEpochDay() <= startDate || document.getEpochDay() >= endDate)) {
+            refreshDates();
+        }
     }
 
     /**
@@ -102,11 +226,18 @@ public class Corpus implements BagOfWords {
     @Override
     public int getFrequency(final String token) {
 
-        if (this.tokenFrequensies.containsKey(token)) {
-            return this.tokenFrequensies.get(token);
-        }
+        return getFrequency(vocabulary.getId(token));
+    }
 
-        return 0;
+    /**
+     * Get the frequency of a token within the corpus.
+     * @param tokenId   Vocabulary id of the token.
+     * @return          The frequency of the token withing the corpus.
+     */
+    @Override
+    public int getFrequency(final int tokenId) {
+
+        return this.tokenFrequensies.get(tokenId);
     }
 
     /**
@@ -117,47 +248,204 @@ public class Corpus implements BagOfWords {
     @Override
     public boolean containsToken(final String token) {
 
-        return tokenFrequensies.containsKey(token);
+        return containsToken(vocabulary.getId(token));
+    }
+
+    /**
+     * Checks if a token is present in the corpus.
+     * @param tokenId   Vocabulary id of the token to look for.
+     * @return          True if token is present in the Corpus.
+     */
+    @Override
+    public boolean containsToken(final int tokenId) {
+
+        return tokenFrequensies.containsKey(tokenId);
     }
 
     /**
      * Creates a sub-corpus of all the documents that were created between start and end dates.
+     * Documents without a date are left out. The documents are found by binary search over a
+     * date-sorted index of the corpus, which is built on first use after the corpus changes.
      * @param start Start date, inclusive
      * @param end   End date, inclusive
-     * @return      Corpus containing relevant documents
+     * @return      Corpus containing relevant documents, in chronological order
      */
     public Corpus getTimePartition(final Calendar start, final Calendar end) {
 
-        final Corpus timePartition = new Corpus();
+        return getTimePartition(EpochDay.of(start), EpochDay.of(end));
+    }
+
+    /**
+     * Creates a sub-corpus of all the documents that were created between start and end dates.
+     * @param start Start date as an epoch day, inclusive
+     * @param end   End date as an epoch day, inclusive
+     * @return      Corpus containing relevant documents, in chronological order
+     * @see #getTimePartition(java.util.Calendar, java.util.Calendar)
+     */
+    public Corpus getTimePartition(final int start, final int end) {
+
+        final Corpus timePartition = new Corpus(vocabulary);
+        final DateIndex index = getDateIndex();
+
+        final int from = lowerBound(index.keys, start);
+        final int to = upperBound(index.keys, end);
+
+        for (int i = from; i < to; i++) {
+            timePartition.add(index.documents[i]);
+        }
+
+        return timePartition;
+    }
+
+    private DateIndex getDateIndex() {
+
+        DateIndex index = dateIndex;
+
+        if (index == null) {
+            index = buildDateIndex();
+            dateIndex = index;
+        }
+
+        return index;
+    }
+
+    private DateIndex buildDateIndex() {
+
+        final List<Document> dated = new ArrayList<>();
 
         for (Document d : documents) {
-            if (!d.getDate().before(start) && !d.getDate().after(end)) {
-                timePartition.add(d);
+            if (d.hasDate()) {
+                dated.add(d);
             }
         }
 
-        timePartition.refreshStats();
+        final Document[] sorted = dated.toArray(new Document[dated.size()]);
 
-        return timePartition;
+        Arrays.sort(sorted, new Comparator<Document>() {
+
+            @Override
+            public int compare(final Document a, final Document b) {
+
+                return Integer.compare(a.getEpochDay(), b.getEpochDay());
+            }
+        });
+
+        final int[] keys = new int[sorted.length];
+
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = sorted[i].getEpochDay();
+        }
+
+        return new DateIndex(sorted, keys);
     }
 
     /**
-     * Refreshes the stats of the corpus.
+     * @return Index of the first key that is not smaller than the given key
+     */
+    private static int lowerBound(final int[] keys, final int key) {
+
+        int low = 0;
+        int high = keys.length;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * @return Index of the first key that is larger than the given key
+     */
+    private static int upperBound(final int[] keys, final int key) {
+
+        int low = 0;
+        int high = keys.length;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Splits the corpus into time partitions in a single pass over its documents.
+     * Each document is assigned to the time span it belongs to, counting from the given time span.
+     * Documents without a date or dated before the given time span are left out.
+     * @param timeSpan  The first time span, which also determines the length of the time spans
+     * @return          The non-empty partitions with their stats, keyed and ordered by the index of their time span
+     */
+    public SortedMap<Integer, Corpus> partition(final TimeSpan timeSpan) {
+
+        final SortedMap<Integer, Corpus> partitions = new TreeMap<>();
+
+        for (Document d : documents) {
+
+            if (!d.hasDate()) {
+                continue;
+            }
+
+            final int index = timeSpan.indexOf(d.getEpochDay());
+
+            if (index >= 0) {
+                Corpus partition = partitions.get(index);
+
+                if (partition == null) {
+                    partition = new Corpus(vocabulary);
+                    partitions.put(index, partition);
+                }
+
+                partition.add(d);
+            }
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Rebuilds the stats of the corpus from all of its documents.
+     * Only needed after modifying the list returned by getDocuments() directly.
      */
     public void refreshStats() {
 
         totalTokens = 0;
-        tokenFrequensies = new HashMap<>();
-        numOfDocumentsContainingToken = new HashMap<>();
-
-        if (!documents.isEmpty()) {
-            for (Document doc : documents) {
-                refreshDates(doc);
-                refreshFrequencies(doc);
-                refreshNumberOfDocumentsContainingToken(doc);
-                totalTokens += doc.getTotalTokens();
-            }
+        dateIndex = null;
+        startDate = EpochDay.NONE;
+        endDate = EpochDay.NONE;
+        tokenFrequensies = new IntCountMap();
+        numOfDocumentsContainingToken = new IntCountMap();
+
+        for (Document doc : documents) {
+            addStats(doc);
+        }
+    }
+
+    /**
+     * An estimate of the memory used by the token counts of the corpus and of its documents.
+     * @return The estimated size in bytes
+     */
+    long tokenCountFootprint() {
+
+        long bytes = tokenFrequensies.footprint() + numOfDocumentsContainingToken.footprint();
+
+        for (Document doc : documents) {
+            bytes += doc.getTokenAmounts().footprint();
         }
+
+        return bytes;
     }
 
     /**
@@ -167,73 +455,98 @@ public class Corpus implements BagOfWords {
      */
     public int numOfDocsContainingToken(final String token) {
 
-        if (containsToken(token)) {
-            return numOfDocumentsContainingToken.get(token);
-        } else {
-            return 0;
-        }
+        return numOfDocsContainingToken(vocabulary.getId(token));
     }
 
-    private void refreshNumberOfDocumentsContainingToken(final Document doc) {
+    /**
+     * Returns the number of documents in this corpus that contain the queried token.
+     * @param tokenId   Vocabulary id of the token
+     * @return          Number of documents containing token
+     */
+    public int numOfDocsContainingToken(final int tokenId) {
 
-        for (String token : doc.getUniqueTokens()) {
-            int amountNow = 0;
+        return numOfDocumentsContainingToken.get(tokenId);
+    }
 
-            if (numOfDocumentsContainingToken.containsKey(token)) {
-                amountNow = numOfDocumentsContainingToken.get(token);
-            }
+    private void addStats(final Document doc) {
 
-            numOfDocumentsContainingToken.put(token, amountNow + 1);
+        if (doc.isQuery()) {
+            throw new IllegalArgumentException("Query documents cannot be added to a corpus");
         }
+
+        totalTokens += doc.getTotalTokens();
+        updateFrequencies(doc, 1);
+        updateDates(doc);
     }
 
-    private void refreshFrequencies(final Document doc) {
+    private void updateFrequencies(final Document doc, final int sign) {
 
-        for (String token : doc.getUniqueTokens()) {
+        final IntCountMap docTokenAmounts = doc.getTokenAmounts();
 
-            final int docTokenAmount = doc.getFrequency(token);
+        for (int slot = 0; slot < docTokenAmounts.capacity(); slot++) {
 
-            int amountNow = 0;
+            final int token = docTokenAmounts.keyAt(slot);
 
-            if (tokenFrequensies.containsKey(token)) {
-                amountNow = tokenFrequensies.get(token);
+            if (token != IntCountMap.EMPTY) {
+                tokenFrequensies.add(token, sign * docTokenAmounts.valueAt(slot));
+                numOfDocumentsContainingToken.add(token, sign);
             }
-
-            tokenFrequensies.put(token, amountNow + docTokenAmount);
         }
     }
 
-    private void refreshDates(final Document doc) {
+    private void updateDates(final Document doc) {
 
-        if (doc.getDate() != null) {
+        if (doc.hasDate()) {
 
-            if (this.startDate == null) {
-                this.startDate = (Calendar) documents.get(0).getDate().clone();
-            } else if (getStartDate().after(doc.getDate())) {
-                startDate.setTime(doc.getDate().getTime());
+            if (startDate == EpochDay.NONE || startDate > doc.getEpochDay()) {
+                startDate = doc.getEpochDay();
             }
 
-            if (this.endDate == null) {
-                this.endDate = (Calendar) documents.get(0).getDate().clone();
-            } else if (getEndDate().before(doc.getDate())) {
-                endDate.setTime(doc.getDate().getTime());
+            if (endDate == EpochDay.NONE || endDate < doc.getEpochDay()) {
+                endDate = doc.getEpochDay();
             }
         }
     }
 
+    private void refreshDates() {
+
+        startDate = EpochDay.NONE;
+        endDate = EpochDay.NONE;
+
+        for (Document doc : documents) {
+            updateDates(doc);
+        }
+    }
+
     /**
-     * @return the startDate
+     * @return A new Calendar set to the date of the earliest document, or null if no document has a date
      */
     public Calendar getStartDate() {
 
-        return startDate;
+        return EpochDay.toCalendar(startDate);
     }
 
     /**
-     * @return the endDate
+     * @return A new Calendar set to the date of the latest document, or null if no document has a date
      */
     public Calendar getEndDate() {
 
+        return EpochDay.toCalendar(endDate);
+    }
+
+    /**
+     * @return The date of the earliest document as an epoch day, or EpochDay.NONE if no document has a date
+     */
+    public int getStartDay() {
+
+        return startDate;
+    }
+
+    /**
+     * @return The date of the latest document as an epoch day, or EpochDay.NONE if no document has a date
+     */
+    public int getEndDay() {
+
         return endDate;
     }
 
@@ -253,11 +566,28 @@ public class Corpus implements BagOfWords {
 
         final Set<String> uniqueTokens = new HashSet<>();
 
-        for (Document d : documents) {
-            for (String token : d.getUniqueTokens()) {
-                uniqueTokens.add(token);
-            }
+        for (int id : tokenFrequensies.keys()) {
+            uniqueTokens.add(vocabulary.getToken(id));
         }
+
         return uniqueTokens;
     }
+
+    /**
+     * @return Vocabulary ids of the unique tokens found in the corpus. Order is not specified.
+     */
+    @Override
+    public int[] getUniqueTokenIds() {
+
+        return tokenFrequensies.keys();
+    }
+
+    /**
+     * @return The vocabulary used for mapping the corpus's tokens to ids.
+     */
+    @Override
+    public Vocabulary getVocabulary() {
+
+        return vocabulary;
+    }
 }
@@ -1,71 +1,235 @@
 package loez.nllr.domain;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import loez.nllr.preprocessor.PreProcessor;
+import loez.nllr.preprocessor.TokenSink;
+import loez.nllr.util.IntCountMap;
+
 /**
  * Document is a single text.
+ * A query document only looks its tokens up in the vocabulary: tokens not in the vocabulary get ids local to
+ * the document, starting from Vocabulary.MAX_SIZE, which no corpus contains. Query documents cannot be added
+ * to corpuses.
  * @author ljleppan@cs
  */
 public class Document implements BagOfWords {
 
-    private String body;
-    private Calendar date;
-    private Map<String, Integer> tokenAmounts;
+    private final int date;
+    private final Vocabulary vocabulary;
+    private final boolean query;
+    private IntCountMap tokenAmounts = new IntCountMap();
     private int numTokens;
+    private List<String> localTokens;
+    private Map<String, Integer> localIds;
 
     /**
      * Creates a new document with known date.
-     * @param date  Date of document's creation.
-     * @param body  The text of the document.
+     * Tokens are mapped to ids using the given vocabulary.
+     * @param date          Date of document's creation as an epoch day, or EpochDay.NONE if not known.
+     * @param body          The text of the document, tokens separated by whitespace.
+     * @param vocabulary    The vocabulary used for mapping tokens to ids.
      */
-    public Document(final Calendar date, final String body) {
+    public Document(final int date, final String body, final Vocabulary vocabulary) {
 
-        this.body = body;
-        this.date = date;
+        this(date, vocabulary);
+
+        countTokenFrequencies(body);
+    }
+
+    /**
+     * Creates a new document from its tokens.
+     * Tokens are mapped to ids using the given vocabulary. Empty tokens are skipped.
+     * @param date          Date of document's creation as an epoch day, or EpochDay.NONE if not known.
+     * @param tokens        The tokens of the document.
+     * @param vocabulary    The vocabulary used for mapping tokens to ids.
+     */
+    public Document(final int date, final List<String> tokens, final Vocabulary vocabulary) {
+
+        this(date, vocabulary);
 
-        if (this.date != null) {
-            this.date.clear(Calendar.HOUR);
-            this.date.clear(Calendar.MINUTE);
-            this.date.clear(Calendar.SECOND);
-            this.date.clear(Calendar.MILLISECOND);
+        for (String token : tokens) {
+            count(token);
         }
+    }
 
-        this.tokenAmounts = new HashMap<>();
-        this.numTokens = 0;
+    /**
+     * Creates a new document from raw text, counting the tokens as the preprocessor produces them.
+     * Tokens are mapped to ids using the given vocabulary.
+     * @param date          Date of document's creation as an epoch day, or EpochDay.NONE if not known.
+     * @param text          The raw text of the document.
+     * @param preprocessor  The preprocessor for processing the text to tokens.
+     * @param vocabulary    The vocabulary used for mapping tokens to ids.
+     */
+    public Document(final int date, final String text, final PreProcessor preprocessor, final Vocabulary vocabulary) {
 
-        countTokenFrequencies();
+        this(date, vocabulary);
+
+        preprocessor.process(text, new TokenSink() {
+            @Override
+            public void accept(final String token) {
+                count(token);
+            }
+        });
+    }
+
+    /**
+     * Creates a new document with known date.
+     * Only the calendar date is retained, the time of day is dropped.
+     * Tokens are mapped to ids using the given vocabulary.
+     * @param date          Date of document's creation.
+     * @param body          The text of the document, tokens separated by whitespace.
+     * @param vocabulary    The vocabulary used for mapping tokens to ids.
+     */
+    public Document(final Calendar date, final String body, final Vocabulary vocabulary) {
+
+        this(EpochDay.of(date), body, vocabulary);
+    }
+
+    /**
+     * Creates a new document with known date, using the default vocabulary.
+     * @param date  Date of document's creation.
+     * @param body  The text of the document, tokens separated by whitespace.
+     */
+    public Document(final Calendar date, final String body) {
+
+        this(date, body, Vocabulary.getDefault());
     }
 
     /**
      * Creates a new document without a known date.
-     * @param body  The text of the document.
+     * @param body  The text of the document, tokens separated by whitespace.
      */
     public Document(final String body) {
 
         this(null, body);
     }
 
-    private void countTokenFrequencies() {
+    private Document(final int date, final Vocabulary vocabulary) {
 
-        numTokens = 0;
+        this(date, vocabulary, false);
+    }
 
-        final String[] tokens = body.split(" ");
-        for (String t : tokens) {
-            numTokens++;
+    private Document(final int date, final Vocabulary vocabulary, final boolean query) {
+
+        this.date = date;
+        this.vocabulary = vocabulary;
+        this.query = query;
+    }
+
+    /**
+     * Creates a new query document from its tokens, without adding tokens to the vocabulary.
+     * Tokens in the vocabulary keep their ids, other tokens get ids local to the document.
+     * Empty tokens are skipped.
+     * @param date          Date of document's creation as an epoch day, or EpochDay.NONE if not known.
+     * @param tokens        The tokens of the document.
+     * @param vocabulary    The vocabulary used for looking up token ids.
+     * @return              The query document
+     */
+    public static Document query(final int date, final List<String> tokens, final Vocabulary vocabulary) {
 
-            if (tokenAmounts.containsKey(t)) {
-                final int amountNow = tokenAmounts.get(t);
-                tokenAmounts.put(t, amountNow + 1);
-            } else {
-                tokenAmounts.put(t, 1);
+        final Document document = new Document(date, vocabulary, true);
+
+        for (String token : tokens) {
+            document.count(token);
+        }
+
+        return document;
+    }
+
+    /**
+     * Counts the whitespace-separated tokens of the body. Runs of whitespace separate no empty tokens.
+     */
+    private void countTokenFrequencies(final String body) {
+
+        int start = 0;
+
+        for (int i = 0; i <= body.length(); i++) {
+            if (i == body.length() || body.charAt(i) <= ' ') {
+                if (i > start) {
+                    count(body.substring(start, i));
+                }
+                start = i + 1;
             }
         }
     }
 
+    private void count(final String token) {
+
+        if (!token.isEmpty()) {
+            numTokens++;
+            tokenAmounts.increment(query ? lookUp(token) : vocabulary.getOrAdd(token));
+        }
+    }
+
+    /**
+     * @return The vocabulary id of the token, or its local id if it is not in the vocabulary
+     */
+    private int lookUp(final String token) {
+
+        final int id = vocabulary.getId(token);
+
+        if (id != Vocabulary.UNKNOWN) {
+            return id;
+        }
+
+        if (localIds == null) {
+            localTokens = new ArrayList<>();
+            localIds = new HashMap<>();
+        }
+
+        Integer localId = localIds.get(token);
+
+        if (localId == null) {
+            localId = Vocabulary.MAX_SIZE + localTokens.size();
+            localTokens.add(token);
+            localIds.put(token, localId);
+        }
+
+        return localId;
+    }
+
+    /**
+     * @return The id of the token in this document, or Vocabulary.UNKNOWN
+     */
+    private int idOf(final String token) {
+
+        final int id = vocabulary.getId(token);
+
+        if (id == Vocabulary.UNKNOWN && localIds != null && localIds.containsKey(token)) {
+            return localIds.get(token);
+        }
+
+        return id;
+    }
+
+    /**
+     * @param tokenId   Id of a token of the document
+     * @return          The token, looked up in the vocabulary or, for local ids, in the document
+     */
+    public String getToken(final int tokenId) {
+
+        if (tokenId >= Vocabulary.MAX_SIZE) {
+            return localTokens.get(tokenId - Vocabulary.MAX_SIZE);
+        }
+
+        return vocabulary.getToken(tokenId);
+    }
+
+    /**
+     * @return True if the document is a query document, which does not add tokens to its vocabulary
+     */
+    public boolean isQuery() {
+
+        return query;
+    }
+
     /**
      * Get the frequency of a given token in the document.
      * @param token The query token.
@@ -74,11 +238,18 @@ public class Document implements BagOfWords {
     @Override
     public int getFrequency(final String token) {
 
-        if (tokenAmounts.containsKey(token)) {
-            return tokenAmounts.get(token);
-        } else {
-            return 0;
-        }
+        return getFrequency(idOf(token));
+    }
+
+    /**
+     * Get the frequency of a given token in the document.
+     * @param tokenId   Vocabulary id, or local id, of the query token.
+     * @return          The frequency of the token.
+     */
+    @Override
+    public int getFrequency(final int tokenId) {
+
+        return tokenAmounts.get(tokenId);
     }
 
     /**
@@ -99,11 +270,24 @@ public class Document implements BagOfWords {
     public Set<String> getUniqueTokens() {
 
         final Set<String> uniqueTokens = new HashSet<>();
-        uniqueTokens.addAll(tokenAmounts.keySet());
+
+        for (int id : tokenAmounts.keys()) {
+            uniqueTokens.add(getToken(id));
+        }
 
         return uniqueTokens;
     }
 
+    /**
+     * Get the vocabulary ids of the document's unique tokens.
+     * @return  An array of unique token ids in the document. Order is not specified.
+     */
+    @Override
+    public int[] getUniqueTokenIds() {
+
+        return tokenAmounts.keys();
+    }
+
     /**
      * Checks if a token is present in the document.
      * @param token Token to look for
@@ -112,15 +296,96 @@ public class Document implements BagOfWords {
     @Override
     public boolean containsToken(final String token) {
 
-        return tokenAmounts.containsKey(token);
+        return containsToken(idOf(token));
+    }
+
+    /**
+     * Checks if a token is present in the document.
+     * @param tokenId   Vocabulary id of the token to look for
+     * @return          True if token is present, false if not
+     */
+    @Override
+    public boolean containsToken(final int tokenId) {
+
+        return tokenAmounts.containsKey(tokenId);
+    }
+
+    /**
+     * The token counts of the document, keyed by vocabulary id.
+     * Must not be modified.
+     * @return The token counts
+     */
+    IntCountMap getTokenAmounts() {
+
+        return tokenAmounts;
+    }
+
+    /**
+     * Removes the pruned tokens from the document, reallocating its token counts to fit the remaining tokens.
+     * @param pruned    Flags of the pruned tokens, indexed by vocabulary id. Tokens beyond the array are kept.
+     */
+    void prune(final boolean[] pruned) {
+
+        final int[] ids = tokenAmounts.keys();
+        int kept = 0;
+
+        for (int id : ids) {
+            if (!isPruned(id, pruned)) {
+                kept++;
+            }
+        }
+
+        final IntCountMap remaining = new IntCountMap(kept);
+        numTokens = 0;
+
+        for (int id : ids) {
+            if (!isPruned(id, pruned)) {
+                final int count = tokenAmounts.get(id);
+                remaining.add(id, count);
+                numTokens += count;
+            }
+        }
+
+        tokenAmounts = remaining;
+    }
+
+    private static boolean isPruned(final int id, final boolean[] pruned) {
+
+        return id < pruned.length && pruned[id];
+    }
+
+    /**
+     * @return The vocabulary used for mapping the document's tokens to ids.
+     */
+    @Override
+    public Vocabulary getVocabulary() {
+
+        return vocabulary;
     }
 
     /**
      * Get the date of creation of the document.
-     * @return The date of creation.
+     * @return A new Calendar set to the midnight of the date of creation, or null if the date is not known.
      */
     public Calendar getDate() {
 
+        return EpochDay.toCalendar(date);
+    }
+
+    /**
+     * Get the date of creation of the document as an epoch day.
+     * @return The date of creation, or EpochDay.NONE if the date is not known.
+     */
+    public int getEpochDay() {
+
         return date;
     }
+
+    /**
+     * @return True if the date of creation of the document is known.
+     */
+    public boolean hasDate() {
+
+        return date != EpochDay.NONE;
+    }
 }
@@ -0,0 +1,187 @@
+package loez.nllr.domain;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * Calendar arithmetic on dates represented as epoch days.
+ * An epoch day is the number of days since 1970-01-01 in the proleptic Gregorian calendar.
+ * Epoch days carry no time of day or time zone, so two dates can be compared and subtracted as plain ints.
+ * @author ljleppan@cs
+ */
+public class EpochDay {
+
+    /**
+     * The epoch day value used for an unknown date.
+     */
+    public static final int NONE = Integer.MIN_VALUE;
+
+    private static final int DAYS_PER_ERA = 146097;
+    private static final int YEARS_PER_ERA = 400;
+    private static final int DAYS_FROM_ERA_TO_EPOCH = 719468;
+    private static final int MONTHS_IN_YEAR = 12;
+    private static final int DAYS_IN_WEEK = 7;
+
+    /**
+     * Converts a date to an epoch day.
+     * @param year          The year
+     * @param month         The month, 1 being January
+     * @param dayOfMonth    The day of month, starting from 1
+     * @return              The epoch day
+     */
+    public static int of(final int year, final int month, final int dayOfMonth) {
+
+        // Years are counted from March so that the leap day falls at the end of the year
+        final int y;
+        if (month <= 2) {
+            y = year - 1;
+        } else {
+            y = year;
+        }
+
+        final int era = floorDiv(y, YEARS_PER_ERA);
+        final int yearOfEra = y - era * YEARS_PER_ERA;
+        final int monthFromMarch = (month + 9) % MONTHS_IN_YEAR;
+        final int dayOfYear = (153 * monthFromMarch + 2) / 5 + dayOfMonth - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_FROM_ERA_TO_EPOCH;
+    }
+
+    /**
+     * Converts the calendar date of a Calendar to an epoch day, ignoring its time of day.
+     * @param calendar  The calendar, may be null
+     * @return          The epoch day, or NONE if the calendar is null
+     */
+    public static int of(final Calendar calendar) {
+
+        if (calendar == null) {
+            return NONE;
+        }
+
+        return of(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Converts an epoch day to a new Calendar set to midnight of that day in the default time zone.
+     * @param epochDay  The epoch day
+     * @return          A new Calendar, or null if the epoch day is NONE
+     */
+    public static Calendar toCalendar(final int epochDay) {
+
+        if (epochDay == NONE) {
+            return null;
+        }
+
+        final int[] date = toDate(epochDay);
+
+        return new GregorianCalendar(date[0], date[1] - 1, date[2]);
+    }
+
+    /**
+     * @param epochDay  The epoch day
+     * @return          The year of the epoch day
+     */
+    public static int year(final int epochDay) {
+
+        return toDate(epochDay)[0];
+    }
+
+    /**
+     * @param epochDay  The epoch day
+     * @return          The month of the epoch day, 1 being January
+     */
+    public static int month(final int epochDay) {
+
+        return toDate(epochDay)[1];
+    }
+
+    /**
+     * @param epochDay  The epoch day
+     * @return          The day of month of the epoch day, starting from 1
+     */
+    public static int dayOfMonth(final int epochDay) {
+
+        return toDate(epochDay)[2];
+    }
+
+    /**
+     * @param epochDay  The epoch day
+     * @return          The day of week of the epoch day, 1 being Monday and 7 being Sunday
+     */
+    public static int dayOfWeek(final int epochDay) {
+
+        // 1970-01-01 was a Thursday
+        return floorMod(epochDay + 3, DAYS_IN_WEEK) + 1;
+    }
+
+    /**
+     * @param year  The year
+     * @param month The month, 1 being January
+     * @return      The number of days in the month
+     */
+    public static int lengthOfMonth(final int year, final int month) {
+
+        if (month == MONTHS_IN_YEAR) {
+            return of(year + 1, 1, 1) - of(year, month, 1);
+        }
+
+        return of(year, month + 1, 1) - of(year, month, 1);
+    }
+
+    /**
+     * Integer division rounding towards negative infinity.
+     * @param dividend  The dividend
+     * @param divisor   The divisor, must be positive
+     * @return          The largest integer less than or equal to dividend / divisor
+     */
+    public static int floorDiv(final int dividend, final int divisor) {
+
+        final int quotient = dividend / divisor;
+
+        if (dividend % divisor < 0) {
+            return quotient - 1;
+        }
+
+        return quotient;
+    }
+
+    /**
+     * Modulo with the sign of the divisor.
+     * @param dividend  The dividend
+     * @param divisor   The divisor, must be positive
+     * @return          The non-negative remainder of dividend / divisor
+     */
+    public static int floorMod(final int dividend, final int divisor) {
+
+        return dividend - floorDiv(dividend, divisor) * divisor;
+    }
+
+    /**
+     * @return An array of year, month and day of month for the epoch day
+     */
+    private static int[] toDate(final int epochDay) {
+
+        final int shifted = epochDay + DAYS_FROM_ERA_TO_EPOCH;
+        final int era = floorDiv(shifted, DAYS_PER_ERA);
+        final int dayOfEra = shifted - era * DAYS_PER_ERA;
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / (DAYS_PER_ERA - 1)) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int monthFromMarch = (5 * dayOfYear + 2) / 153;
+        final int dayOfMonth = dayOfYear - (153 * monthFromMarch + 2) / 5 + 1;
+
+        final int month;
+        if (monthFromMarch < 10) {
+            month = monthFromMarch + 3;
+        } else {
+            month = monthFromMarch - 9;
+        }
+
+        int year = yearOfEra + era * YEARS_PER_ERA;
+        if (month <= 2) {
+            year++;
+        }
+
+        return new int[]{year, month, dayOfMonth};
+    }
+}
@@ -0,0 +1,194 @@
+package loez.nllr.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes uninformative tokens from a corpus: stopwords, tokens found in too few documents, and the least
+ * common tokens beyond a maximum vocabulary size. Fewer tokens make the token counts of the corpus and its
+ * documents smaller, and leave less tokens to score for every query.
+ * Pruned tokens are kept in the vocabulary, as ids are never reassigned, but no longer counted anywhere.
+ * The minimum document frequency and the maximum vocabulary size are counted over the pruned corpus, so when
+ * evaluating on documents of the corpus, pruning by them lets the test documents affect which tokens are kept.
+ * @author ljleppan@cs
+ */
+public class Pruner {
+
+    /**
+     * The maximum vocabulary size that keeps every token.
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final Set<String> stopwords;
+    private final int minDocumentFrequency;
+    private final int maxVocabularySize;
+
+    /**
+     * The outcome of pruning a corpus.
+     */
+    public static class Report {
+
+        private final int keptTokens;
+        private final int prunedTokens;
+        private final long prunedOccurrences;
+        private final long bytesBefore;
+        private final long bytesAfter;
+
+        /**
+         * Creates a new report.
+         * @param keptTokens        Number of distinct tokens kept
+         * @param prunedTokens      Number of distinct tokens pruned
+         * @param prunedOccurrences Number of token occurrences pruned
+         * @param bytesBefore       Estimated size of the token counts before pruning
+         * @param bytesAfter        Estimated size of the token counts after pruning
+         */
+        public Report(final int keptTokens, final int prunedTokens, final long prunedOccurrences, final long bytesBefore, final long bytesAfter) {
+
+            this.keptTokens = keptTokens;
+            this.prunedTokens = prunedTokens;
+            this.prunedOccurrences = prunedOccurrences;
+            this.bytesBefore = bytesBefore;
+            this.bytesAfter = bytesAfter;
+        }
+
+        /**
+         * @return The number of distinct tokens kept
+         */
+        public int getKeptTokens() {
+
+            return keptTokens;
+        }
+
+        /**
+         * @return The number of distinct tokens pruned
+         */
+        public int getPrunedTokens() {
+
+            return prunedTokens;
+        }
+
+        /**
+         * @return The number of token occurrences pruned
+         */
+        public long getPrunedOccurrences() {
+
+            return prunedOccurrences;
+        }
+
+        /**
+         * @return The estimated size in bytes of the token counts of the corpus and its documents before pruning
+         */
+        public long getBytesBefore() {
+
+            return bytesBefore;
+        }
+
+        /**
+         * @return The estimated size in bytes of the token counts of the corpus and its documents after pruning
+         */
+        public long getBytesAfter() {
+
+            return bytesAfter;
+        }
+
+        /**
+         * @return The estimated number of bytes saved by pruning
+         */
+        public long getBytesSaved() {
+
+            return bytesBefore - bytesAfter;
+        }
+    }
+
+    /**
+     * Creates a new pruner.
+     * @param stopwords             Tokens to prune, as produced by the preprocessor of the corpus
+     * @param minDocumentFrequency  Tokens found in fewer documents are pruned
+     * @param maxVocabularySize     Number of most common tokens to keep, at least 1, or UNLIMITED. Tokens are ranked by
+     *                              document frequency, then by frequency, then by vocabulary id.
+     */
+    public Pruner(final Set<String> stopwords, final int minDocumentFrequency, final int maxVocabularySize) {
+
+        if (maxVocabularySize < 1) {
+            throw new IllegalArgumentException("Maximum vocabulary size must be positive: " + maxVocabularySize);
+        }
+
+        this.stopwords = new HashSet<>(stopwords);
+        this.minDocumentFrequency = minDocumentFrequency;
+        this.maxVocabularySize = maxVocabularySize;
+    }
+
+    /**
+     * Prunes the tokens of a corpus and its documents, and rebuilds the stats of the corpus.
+     * Documents shared with other corpuses are pruned as well, so those corpuses must be refreshed, or
+     * preferably built from the corpus only after pruning.
+     * @param corpus    The corpus to prune
+     * @return          A report of the pruning
+     */
+    public Report prune(final Corpus corpus) {
+
+        final long bytesBefore = corpus.tokenCountFootprint();
+        final Vocabulary vocabulary = corpus.getVocabulary();
+        final boolean[] pruned = new boolean[vocabulary.size()];
+
+        final List<Integer> candidates = new ArrayList<>();
+        for (int id : corpus.getUniqueTokenIds()) {
+            if (stopwords.contains(vocabulary.getToken(id)) || corpus.numOfDocsContainingToken(id) < minDocumentFrequency) {
+                pruned[id] = true;
+            } else {
+                candidates.add(id);
+            }
+        }
+
+        if (candidates.size() > maxVocabularySize) {
+            Collections.sort(candidates, byCommonness(corpus));
+
+            for (int id : candidates.subList(maxVocabularySize, candidates.size())) {
+                pruned[id] = true;
+            }
+        }
+
+        final int tokensBefore = corpus.getUniqueTokenIds().length;
+        final long occurrencesBefore = corpus.getTotalTokens();
+
+        for (Document document : corpus.getDocuments()) {
+            document.prune(pruned);
+        }
+
+        corpus.refreshStats();
+
+        final int tokensAfter = corpus.getUniqueTokenIds().length;
+
+        return new Report(tokensAfter, tokensBefore - tokensAfter, occurrencesBefore - corpus.getTotalTokens(), bytesBefore, corpus.tokenCountFootprint());
+    }
+
+    /**
+     * Orders token ids from the most to the least common in the corpus.
+     */
+    private static Comparator<Integer> byCommonness(final Corpus corpus) {
+
+        return new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+
+                final int byDocuments = Integer.compare(corpus.numOfDocsContainingToken(b), corpus.numOfDocsContainingToken(a));
+
+                if (byDocuments != 0) {
+                    return byDocuments;
+                }
+
+                final int byFrequency = Integer.compare(corpus.getFrequency(b), corpus.getFrequency(a));
+
+                if (byFrequency != 0) {
+                    return byFrequency;
+                }
+
+                return Integer.compare(a, b);
+            }
+        };
+    }
+}
@@ -4,6 +4,8 @@ import java.util.Calendar;
 
 /**
  * A timespan.
+ * Dates are handled as epoch days, so span boundaries and span indices are calculated arithmetically.
+ * Weeks start on Monday.
  * @author loezi
  */
 public class TimeSpan {
@@ -45,8 +47,11 @@ public class TimeSpan {
 
     };
 
-    private Calendar startDate;
-    private Calendar endDate;
+    private static final int DAYS_IN_WEEK = 7;
+    private static final int MONTHS_IN_YEAR = 12;
+
+    private int startDay;
+    private int endDay;
     private final Length length;
 
     /**
@@ -57,9 +62,20 @@ public class TimeSpan {
      */
     public TimeSpan(final Calendar startDate, final Length length) {
 
+        this(EpochDay.of(startDate), length);
+    }
+
+    /**
+     * Creates a new timespan.
+     * The actual start date is not necessarily the given start date, but the start date of the time period the given date belongs to.
+     * @param startDay  An epoch day that is used to determine the start date of the time span
+     * @param length    Length of the time span
+     */
+    public TimeSpan(final int startDay, final Length length) {
+
         this.length = length;
 
-        calculateRealStartDate(startDate);
+        calculateRealStartDate(startDay);
         calculateEndDate();
     }
 
@@ -68,7 +84,7 @@ public class TimeSpan {
      */
     public Calendar getStart() {
 
-        return (Calendar) this.startDate.clone();
+        return EpochDay.toCalendar(startDay);
     }
 
     /**
@@ -76,74 +92,166 @@ public class TimeSpan {
      */
     public Calendar getEnd() {
 
-        return (Calendar) this.endDate.clone();
+        return EpochDay.toCalendar(endDay);
     }
 
     /**
-     * Advanced the time span to the next equivalent time span.
-     * For Length.DAILY, this is the next day. For Length.BIWEEKLY this is the next two-week period.
+     * @return The start date of the time span as an epoch day
      */
-    public void advance() {
+    public int getStartDay() {
+
+        return startDay;
+    }
+
+    /**
+     * @return The end date of the time span as an epoch day
+     */
+    public int getEndDay() {
+
+        return endDay;
+    }
+
+    /**
+     * Gets the start date of a later time span without advancing this one.
+     * @param index Number of time spans after this one, 0 being this time span
+     * @return      The start date of the time span
+     */
+    public Calendar getStart(final int index) {
+
+        return EpochDay.toCalendar(getStartDay(index));
+    }
+
+    /**
+     * Gets the end date of a later time span without advancing this one.
+     * @param index Number of time spans after this one, 0 being this time span
+     * @return      The end date of the time span
+     */
+    public Calendar getEnd(final int index) {
 
-        if (length == Length.DAILY) {
-            startDate.add(Calendar.DATE, 1);
-        } else if (length == Length.WEEKLY) {
-            startDate.add(Calendar.WEEK_OF_YEAR, 1);
+        return EpochDay.toCalendar(getEndDay(index));
+    }
+
+    /**
+     * Gets the start date of a later time span without advancing this one.
+     * @param index Number of time spans after this one, 0 being this time span
+     * @return      The start date of the time span as an epoch day
+     */
+    public int getStartDay(final int index) {
+
+        //Default is Length.DAILY
+        int day = startDay + index;
+
+        if (length == Length.WEEKLY) {
+            day = startDay + DAYS_IN_WEEK * index;
         } else if (length == Length.BIWEEKLY) {
-            startDate.add(Calendar.DATE, 14);
+            day = startDay + 2 * DAYS_IN_WEEK * index;
         } else if (length == Length.MONTHLY) {
-            startDate.add(Calendar.MONTH, 1);
+            final int month = monthNumber(startDay) + index;
+            day = EpochDay.of(EpochDay.floorDiv(month, MONTHS_IN_YEAR), EpochDay.floorMod(month, MONTHS_IN_YEAR) + 1, 1);
         } else if (length == Length.YEARLY) {
-            startDate.add(Calendar.YEAR, 1);
+            day = EpochDay.of(EpochDay.year(startDay) + index, 1, 1);
         }
 
-        calculateEndDate();
+        return day;
+    }
 
+    /**
+     * Gets the end date of a later time span without advancing this one.
+     * @param index Number of time spans after this one, 0 being this time span
+     * @return      The end date of the time span as an epoch day
+     */
+    public int getEndDay(final int index) {
+
+        return endDayOf(getStartDay(index));
     }
 
-    private void calculateRealStartDate(final Calendar rawStartDate) {
+    /**
+     * Calculates which time span a date belongs to, counting from this time span.
+     * The result equals the number of times advance() would have to be called for this time span to contain the date.
+     * Dates before this time span result in negative indices.
+     * @param date  The date
+     * @return      Index of the time span containing the date, 0 being this time span
+     */
+    public int indexOf(final Calendar date) {
+
+        return indexOf(EpochDay.of(date));
+    }
 
-        clearDate(rawStartDate);
-        rawStartDate.setFirstDayOfWeek(Calendar.MONDAY);
+    /**
+     * Calculates which time span a date belongs to, counting from this time span.
+     * @param day   The date as an epoch day
+     * @return      Index of the time span containing the date, 0 being this time span
+     * @see #indexOf(java.util.Calendar)
+     */
+    public int indexOf(final int day) {
 
-        startDate = rawStartDate;
         //Default is Length.DAILY
+        int index = day - startDay;
 
         if (length == Length.WEEKLY) {
-            startDate.add(Calendar.DAY_OF_WEEK, startDate.getFirstDayOfWeek() - startDate.get(Calendar.DAY_OF_WEEK));
+            index = EpochDay.floorDiv(day - startDay, DAYS_IN_WEEK);
         } else if (length == Length.BIWEEKLY) {
-            startDate.add(Calendar.DAY_OF_WEEK, startDate.getFirstDayOfWeek() - startDate.get(Calendar.DAY_OF_WEEK));
-            startDate.add(Calendar.WEEK_OF_YEAR, Calendar.WEEK_OF_YEAR % 2 - 1);
+            index = EpochDay.floorDiv(day - startDay, 2 * DAYS_IN_WEEK);
         } else if (length == Length.MONTHLY) {
-            startDate.set(Calendar.DAY_OF_MONTH, startDate.getActualMinimum(Calendar.DAY_OF_MONTH));
+            index = monthNumber(day) - monthNumber(startDay);
         } else if (length == Length.YEARLY) {
-            startDate.set(Calendar.DAY_OF_YEAR, startDate.getActualMinimum(Calendar.DAY_OF_YEAR));
+            index = EpochDay.year(day) - EpochDay.year(startDay);
+        }
+
+        return index;
+    }
+
+    /**
+     * Advanced the time span to the next equivalent time span.
+     * For Length.DAILY, this is the next day. For Length.BIWEEKLY this is the next two-week period.
+     */
+    public void advance() {
+
+        startDay = getStartDay(1);
+
+        calculateEndDate();
+
+    }
+
+    private void calculateRealStartDate(final int rawStartDay) {
+
+        startDay = rawStartDay;
+        //Default is Length.DAILY
+
+        if (length == Length.WEEKLY || length == Length.BIWEEKLY) {
+            startDay = rawStartDay - EpochDay.dayOfWeek(rawStartDay) + 1;
+        } else if (length == Length.MONTHLY) {
+            startDay = EpochDay.of(EpochDay.year(rawStartDay), EpochDay.month(rawStartDay), 1);
+        } else if (length == Length.YEARLY) {
+            startDay = EpochDay.of(EpochDay.year(rawStartDay), 1, 1);
         }
     }
 
     private void calculateEndDate() {
 
-        endDate = (Calendar) startDate.clone();
+        endDay = endDayOf(startDay);
+    }
+
+    private int endDayOf(final int spanStartDay) {
+
         //Default is Length.DAILY
+        int day = spanStartDay;
 
         if (length == Length.WEEKLY) {
-            endDate.add(Calendar.DATE, 6);
+            day = spanStartDay + DAYS_IN_WEEK - 1;
         } else if (length == Length.BIWEEKLY) {
-            endDate.add(Calendar.DAY_OF_YEAR, 13);
+            day = spanStartDay + 2 * DAYS_IN_WEEK - 1;
         } else if (length == Length.MONTHLY) {
-            endDate.set(Calendar.DAY_OF_MONTH, endDate.getActualMaximum(Calendar.DAY_OF_MONTH));
+            day = spanStartDay + EpochDay.lengthOfMonth(EpochDay.year(spanStartDay), EpochDay.month(spanStartDay)) - 1;
         } else if (length == Length.YEARLY) {
-            endDate.set(Calendar.DAY_OF_YEAR, endDate.getActualMaximum(Calendar.DAY_OF_YEAR));
+            day = EpochDay.of(EpochDay.year(spanStartDay) + 1, 1, 1) - 1;
         }
+
+        return day;
     }
 
-    private void clearDate(final Calendar date) {
+    private static int monthNumber(final int day) {
 
-        date.clear(Calendar.HOUR);
-        date.clear(Calendar.HOUR_OF_DAY);
-        date.clear(Calendar.MINUTE);
-        date.clear(Calendar.SECOND);
-        date.clear(Calendar.MILLISECOND);
+        return EpochDay.year(day) * MONTHS_IN_YEAR + EpochDay.month(day) - 1;
     }
-
 }
@@ -0,0 +1,114 @@
+package loez.nllr.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A dictionary that maps tokens to dense integer ids.
+ * Ids are assigned in order of first appearance, starting from zero.
+ * Documents and corpuses that are compared with each other must share the same vocabulary.
+ * Safe for concurrent use.
+ * @author ljleppan@cs
+ */
+public class Vocabulary {
+
+    /**
+     * The id returned for tokens that are not in the vocabulary.
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * The maximum number of tokens in a vocabulary. Larger ids are reserved for the document-local ids of
+     * tokens that a query document does not add to its vocabulary.
+     */
+    public static final int MAX_SIZE = Integer.MAX_VALUE / 2;
+
+    private static final Vocabulary DEFAULT = new Vocabulary();
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> tokens = new ArrayList<>();
+
+    /**
+     * @return The vocabulary shared by all documents and corpuses that are not given an explicit vocabulary.
+     */
+    public static Vocabulary getDefault() {
+
+        return DEFAULT;
+    }
+
+    /**
+     * Gets the id of a token, adding the token to the vocabulary if it is not yet present.
+     * @param token The token
+     * @return      The id of the token
+     */
+    public int getOrAdd(final String token) {
+
+        final Integer id = ids.get(token);
+
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (tokens) {
+            final Integer existing = ids.get(token);
+
+            if (existing != null) {
+                return existing;
+            }
+
+            final int newId = tokens.size();
+
+            if (newId >= MAX_SIZE) {
+                throw new IllegalStateException("Vocabulary is full");
+            }
+
+            tokens.add(token);
+            ids.put(token, newId);
+
+            return newId;
+        }
+    }
+
+    /**
+     * Gets the id of a token without modifying the vocabulary.
+     * @param token The token
+     * @return      The id of the token, or UNKNOWN if the token is not in the vocabulary
+     */
+    public int getId(final String token) {
+
+        if (token == null) {
+            return UNKNOWN;
+        }
+
+        final Integer id = ids.get(token);
+
+        if (id == null) {
+            return UNKNOWN;
+        }
+
+        return id;
+    }
+
+    /**
+     * @param id    Id of a token
+     * @return      The token with the given id
+     */
+    public String getToken(final int id) {
+
+        synchronized (tokens) {
+            return tokens.get(id);
+        }
+    }
+
+    /**
+     * @return The number of tokens in the vocabulary. All ids are smaller than this.
+     */
+    public int size() {
+
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+}
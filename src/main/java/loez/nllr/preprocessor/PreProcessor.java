@@ -15,6 +15,14 @@ public interface PreProcessor {
      */
     String process(String input);
 
+    /**
+     * Processes given string (of words) to proper tokens, passing them to the sink without joining them to a string.
+     * Tokens are separated by whitespace, and empty tokens are skipped.
+     * @param input Input string
+     * @param sink  Receiver of the tokens
+     */
+    void process(String input, TokenSink sink);
+
     /**
      * Sets the preprocessors language.
      * @param language  Language
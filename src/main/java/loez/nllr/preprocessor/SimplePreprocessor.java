@@ -1,32 +1,137 @@
 package loez.nllr.preprocessor;
 
-import loez.nllr.preprocessor.util.Numeral;
-import loez.nllr.preprocessor.util.Punctuation;
+import java.util.Locale;
 
 /**
  * An extremely simple preprocessor, for use as a fallback.
+ * Removes punctuation, replaces runs of digits with NUMERAL, trims and uppercases the input.
  * @author loezi
  */
 public class SimplePreprocessor implements PreProcessor {
 
-    private final Punctuation punctuation = new Punctuation();
-    private final Numeral numeral = new Numeral();
+    private static final String NUMERAL = "NUMERAL";
+    private static final boolean[] PUNCTUATION = new boolean['~' + 1];
+
+    static {
+        for (char c : "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~".toCharArray()) {
+            PUNCTUATION[c] = true;
+        }
+    }
 
     /**
      * Processes the input string into tokens.
+     * The input is processed in a single pass, giving the same result as removing all \p{Punct}, then
+     * replacing all \p{Digit}+ with NUMERAL, then trimming and uppercasing in the default locale.
+     * Since punctuation is removed first, digits separated only by punctuation form a single numeral.
      * @param input String of words
      * @return      String of tokens
      */
     @Override
     public String process(final String input) {
 
-        String output = input;
+        return scan(input, null);
+    }
+
+    /**
+     * Processes the input string into tokens, passing them to the sink.
+     * The tokens are those of process(), split at whitespace.
+     * @param input String of words
+     * @param sink  Receiver of the tokens
+     */
+    @Override
+    public void process(final String input, final TokenSink sink) {
+
+        scan(input, sink);
+    }
+
+    /**
+     * Scans the input once, removing punctuation, replacing digit runs and uppercasing.
+     * Without a sink, returns the trimmed result. With a sink, passes every whitespace-separated token to it instead.
+     */
+    private String scan(final String input, final TokenSink sink) {
+
+        // Only the Turkic locales uppercase an ASCII letter to a non-ASCII one, 'i' to a dotted capital I
+        final String localeLanguage = Locale.getDefault().getLanguage();
+        final boolean asciiUpperCase = !"tr".equals(localeLanguage) && !"az".equals(localeLanguage);
+
+        final StringBuilder output = new StringBuilder(input.length());
+        boolean nonAscii = false;
+        boolean inNumeral = false;
+        int trimmedLength = 0;
+
+        for (int i = 0; i < input.length(); i++) {
+            final char c = input.charAt(i);
+
+            if (isPunctuation(c)) {
+                continue;
+            }
+
+            if (c >= '0' && c <= '9') {
+                if (!inNumeral) {
+                    output.append(NUMERAL);
+                    inNumeral = true;
+                }
+            } else if (c > ' ') {
+                inNumeral = false;
+                if (asciiUpperCase && c >= 'a' && c <= 'z') {
+                    output.append((char) (c - ('a' - 'A')));
+                } else {
+                    nonAscii |= c > '\u007f';
+                    output.append(c);
+                }
+            } else {
+                inNumeral = false;
+                if (sink != null) {
+                    emit(output, nonAscii || !asciiUpperCase, sink);
+                    nonAscii = false;
+                } else if (output.length() > 0) {
+                    output.append(c);
+                }
+                continue;
+            }
 
-        output = punctuation.remove(output);
-        output = numeral.replace(output, "NUMERAL");
-        output = output.trim().toUpperCase();
+            trimmedLength = output.length();
+        }
+
+        if (sink != null) {
+            emit(output, nonAscii || !asciiUpperCase, sink);
+            return null;
+        }
+
+        output.setLength(trimmedLength);
+
+        return toUpperCase(output, nonAscii || !asciiUpperCase);
+    }
+
+    /**
+     * Passes the token in the buffer to the sink, unless it is empty, and clears the buffer.
+     */
+    private static void emit(final StringBuilder token, final boolean needsUpperCase, final TokenSink sink) {
+
+        if (token.length() > 0) {
+            sink.accept(toUpperCase(token, needsUpperCase));
+            token.setLength(0);
+        }
+    }
+
+    /**
+     * @param needsUpperCase    false if the characters are already uppercased
+     */
+    private static String toUpperCase(final StringBuilder characters, final boolean needsUpperCase) {
+
+        if (needsUpperCase) {
+            return characters.toString().toUpperCase();
+        }
+
+        return characters.toString();
+    }
+
+    /**
+     * @return true if the character is matched by the regular expression \p{Punct}, that is ASCII punctuation
+     */
+    private static boolean isPunctuation(final char c) {
 
-        return output;
+        return c < PUNCTUATION.length && PUNCTUATION[c];
     }
 
     /**
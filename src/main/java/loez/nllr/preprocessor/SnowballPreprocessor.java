@@ -2,26 +2,39 @@ package loez.nllr.preprocessor;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import loez.nllr.preprocessor.exception.StemmerCreationException;
 import loez.nllr.preprocessor.util.Numeral;
 import loez.nllr.preprocessor.util.Punctuation;
+import loez.nllr.preprocessor.util.StemCache;
 
 import org.tartarus.snowball.SnowballProgram;
 
 /**
  * A preprocessor that utilizes the Porter2 (Snowball) stemmer.
+ * Safe for concurrent use: a Snowball program keeps the word being stemmed as its state, so every thread
+ * stems with its own program, built on first use. Every thread also has its own stem cache, held only by the
+ * thread, so threads stemming in parallel share no state. Each call to process adds the cache counts of its
+ * thread to counts shared by all threads.
  * @author ljleppan
  */
 public class SnowballPreprocessor implements PreProcessor {
 
+    /**
+     * The default maximum number of words whose stems are cached by each thread.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1 << 14;
+
     private static final String DEFAULT_LANGUAGE = "English";
+    private static final String NUMERAL = "NUMERAL";
 
     private final Punctuation punctuation = new Punctuation();
     private final Numeral numeral = new Numeral();
-    private SnowballProgram stemmer;
+    private final int cacheSize;
+    private final ThreadLocal<Stemmer> stemmers = new ThreadLocal<>();
     private Set<String> languages;
-    private String language;
+    private volatile Settings settings;
 
     /**
      * Creates a new SnowballPreprocessor initialized with a certain language.
@@ -30,6 +43,22 @@ public class SnowballPreprocessor implements PreProcessor {
      */
     public SnowballPreprocessor(final String language) throws StemmerCreationException {
 
+        this(language, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new SnowballPreprocessor initialized with a certain language and stem cache size.
+     * @param language  The language
+     * @param cacheSize The maximum number of words whose stems are cached by each thread, at least 1
+     * @throws StemmerCreationException
+     */
+    public SnowballPreprocessor(final String language, final int cacheSize) throws StemmerCreationException {
+
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + cacheSize);
+        }
+
+        this.cacheSize = cacheSize;
         languages = new HashSet<>();
         languages.add("English");
         languages.add("Finnish");
@@ -57,69 +86,207 @@ public class SnowballPreprocessor implements PreProcessor {
         tryToSetLanguage(language);
     }
 
+    /**
+     * @return The number of words whose stem was found in the cache since the language was set, by all threads in finished calls to process
+     */
+    public long getCacheHits() {
+
+        return settings.hits.get();
+    }
+
+    /**
+     * @return The number of words that had to be stemmed since the language was set, by all threads in finished calls to process
+     */
+    public long getCacheMisses() {
+
+        return settings.misses.get();
+    }
+
     /**
      * @return The language this preprocessor is set to use.
      */
     @Override
     public String getLanguage() {
 
-        return this.language;
+        return settings.language;
     }
 
+    /**
+     * Processes the input into stemmed tokens, joined with single spaces.
+     * The tokens are the same as those passed to the sink by process(String, TokenSink).
+     * @param input Input string
+     * @return      String of tokens
+     */
     @Override
     public String process(final String input) {
 
-        String output = input;
+        final StringBuilder output = new StringBuilder(input.length());
 
-        output = punctuation.remove(output);
-        output = numeral.replace(output, "NUMERAL");
-        output = stemMultiple(output);
-        output = output.trim().toUpperCase();
+        process(input, new TokenSink() {
+            @Override
+            public void accept(final String token) {
+                if (output.length() > 0) {
+                    output.append(' ');
+                }
+                output.append(token);
+            }
+        });
 
-        return output;
+        return output.toString();
+    }
+
+    /**
+     * Processes the input into stemmed tokens, passing them to the sink without joining them to a string.
+     * @param input Input string
+     * @param sink  Receiver of the tokens
+     */
+    @Override
+    public void process(final String input, final TokenSink sink) {
+
+        final Stemmer stemmer = stemmer(settings);
+        final String words = numeral.replace(punctuation.remove(input), NUMERAL);
+        int start = 0;
+
+        try {
+            for (int i = 0; i <= words.length(); i++) {
+                if (i == words.length() || words.charAt(i) <= ' ') {
+                    if (i > start) {
+                        emit(stemmer.stemCached(words.substring(start, i)), sink);
+                    }
+                    start = i + 1;
+                }
+            }
+        } finally {
+            stemmer.reportCounts();
+        }
+    }
+
+    /**
+     * @return A new, empty stem cache for a thread
+     */
+    StemCache newStemCache() {
+
+        return new StemCache(cacheSize);
     }
 
     private void tryToSetLanguage(final String language) throws StemmerCreationException {
 
+        final String newLanguage;
         if (languages.contains(language)) {
-            buildSnowballProgram(language);
-            this.language = language;
+            newLanguage = language;
         } else {
-            buildSnowballProgram(DEFAULT_LANGUAGE);
-            this.language = DEFAULT_LANGUAGE;
+            newLanguage = DEFAULT_LANGUAGE;
         }
+
+        // Building a program checks that the language is available before it is set
+        buildSnowballProgram(newLanguage);
+
+        // Threads build new stemmers and caches for the new settings on their next use
+        settings = new Settings(newLanguage);
     }
 
-    private void buildSnowballProgram(final String language) throws StemmerCreationException {
+    private SnowballProgram buildSnowballProgram(final String language) throws StemmerCreationException {
 
         try {
             final Class stemClass = Class.forName("org.tartarus.snowball.ext." + language + "Stemmer");
-            stemmer = (SnowballProgram) stemClass.newInstance();
+            return (SnowballProgram) stemClass.newInstance();
         } catch (ClassNotFoundException | IllegalAccessException | InstantiationException e) {
             throw new StemmerCreationException(e.getMessage());
         }
     }
 
-    private String stemMultiple(final String sentence) {
+    private static void emit(final String stem, final TokenSink sink) {
+
+        final String token = stem.toUpperCase();
 
-        final String[] words = sentence.split(" ");
+        if (!token.isEmpty()) {
+            sink.accept(token);
+        }
+    }
+
+    /**
+     * @return The stemmer of the calling thread for the settings, built if the thread has none yet
+     */
+    private Stemmer stemmer(final Settings current) {
 
-        final StringBuilder output = new StringBuilder();
+        final Stemmer stemmer = stemmers.get();
 
-        for (String word : words) {
-            final String token = stem(word);
-            output.append(token);
-            output.append(" ");
+        if (stemmer != null && stemmer.settings == current) {
+            return stemmer;
         }
 
-        return output.toString();
+        try {
+            final Stemmer built = new Stemmer(current, buildSnowballProgram(current.language), newStemCache());
+            stemmers.set(built);
+
+            return built;
+        } catch (StemmerCreationException e) {
+            throw new IllegalStateException("Stemmer for " + current.language + " could not be built", e);
+        }
     }
 
-    private String stem(final String word) {
+    /**
+     * A language and the cache counts of all threads stemming it, replaced as a whole when the language changes.
+     */
+    private static final class Settings {
+
+        private final String language;
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
 
-        stemmer.setCurrent(word);
-        stemmer.stem();
+        private Settings(final String language) {
 
-        return stemmer.getCurrent();
+            this.language = language;
+        }
+    }
+
+    /**
+     * A Snowball program of one thread, and its cache of stems.
+     */
+    private static final class Stemmer {
+
+        private final Settings settings;
+        private final SnowballProgram program;
+        private final StemCache cache;
+        private long reportedHits;
+        private long reportedMisses;
+
+        private Stemmer(final Settings settings, final SnowballProgram program, final StemCache cache) {
+
+            this.settings = settings;
+            this.program = program;
+            this.cache = cache;
+        }
+
+        /**
+         * Stems a word, looking it up in the cache first, so frequent words are only stemmed once per thread.
+         */
+        private String stemCached(final String word) {
+
+            final String cached = cache.get(word);
+
+            if (cached != null) {
+                return cached;
+            }
+
+            program.setCurrent(word);
+            program.stem();
+
+            final String stem = program.getCurrent();
+            cache.put(word, stem);
+
+            return stem;
+        }
+
+        /**
+         * Adds the counts of the cache since the last report to the shared counts.
+         */
+        private void reportCounts() {
+
+            settings.hits.addAndGet(cache.getHits() - reportedHits);
+            settings.misses.addAndGet(cache.getMisses() - reportedMisses);
+            reportedHits = cache.getHits();
+            reportedMisses = cache.getMisses();
+        }
     }
 }
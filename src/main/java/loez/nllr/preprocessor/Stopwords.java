@@ -0,0 +1,59 @@
+package loez.nllr.preprocessor;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Language specific stopword lists, read from the resources /stopwords/[language].txt.
+ * The lists hold one word per line, ignoring empty lines and lines starting with #.
+ * @author ljleppan@cs
+ */
+public final class Stopwords {
+
+    private Stopwords() { }
+
+    /**
+     * Reads the stopwords of a language, processed to tokens so that they match the tokens of documents
+     * processed by the same preprocessor.
+     * @param language      Language of the list, for example "Finnish"
+     * @param preprocessor  A words-to-tokens processor
+     * @return              The stopword tokens
+     * @throws FileNotFoundException if there is no stopword list for the language
+     * @throws IOException if reading the list fails
+     */
+    public static Set<String> load(final String language, final PreProcessor preprocessor) throws IOException {
+
+        final String resource = "/stopwords/" + language.trim().toLowerCase() + ".txt";
+        final InputStream stream = Stopwords.class.getResourceAsStream(resource);
+
+        if (stream == null) {
+            throw new FileNotFoundException("No stopword list for language " + language + ": " + resource);
+        }
+
+        final Set<String> stopwords = new HashSet<>();
+        final TokenSink sink = new TokenSink() {
+            @Override
+            public void accept(final String token) {
+                stopwords.add(token);
+            }
+        };
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                final String word = line.trim();
+
+                if (!word.isEmpty() && !word.startsWith("#")) {
+                    preprocessor.process(word, sink);
+                }
+            }
+        }
+
+        return stopwords;
+    }
+}
@@ -0,0 +1,14 @@
+package loez.nllr.preprocessor;
+
+/**
+ * Receives the tokens of a text from a preprocessor, one at a time.
+ * @author ljleppan@cs
+ */
+public interface TokenSink {
+
+    /**
+     * Called for every token, in the order they appear in the text.
+     * @param token The token, never empty
+     */
+    void accept(String token);
+}
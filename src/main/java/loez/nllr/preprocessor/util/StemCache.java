@@ -0,0 +1,99 @@
+package loez.nllr.preprocessor.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of word stems that evicts the least recently used word when full.
+ * Word frequencies are Zipfian, so a few thousand entries answer most lookups.
+ * Not safe for concurrent use: every thread stemming in parallel keeps its own cache.
+ * @author ljleppan@cs
+ */
+public class StemCache {
+
+    private final Map<String, String> stems;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a new stem cache.
+     * @param capacity  The maximum number of words held, at least 1
+     */
+    public StemCache(final int capacity) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.stems = new LinkedHashMap<String, String>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Looks up the stem of a word, counting a hit or a miss.
+     * @param word  The word
+     * @return      The stem, or null if the word is not in the cache
+     */
+    public String get(final String word) {
+
+        final String stem = stems.get(word);
+
+        if (stem == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return stem;
+    }
+
+    /**
+     * Adds the stem of a word, evicting the least recently used word if the cache is full.
+     * @param word  The word
+     * @param stem  The stem of the word
+     */
+    public void put(final String word, final String stem) {
+
+        stems.put(word, stem);
+    }
+
+    /**
+     * Removes all words. The hit and miss counts are kept.
+     */
+    public void clear() {
+
+        stems.clear();
+    }
+
+    /**
+     * @return The number of words in the cache
+     */
+    public int size() {
+
+        return stems.size();
+    }
+
+    /**
+     * @return The number of lookups that found the word
+     */
+    public long getHits() {
+
+        return hits;
+    }
+
+    /**
+     * @return The number of lookups that did not find the word
+     */
+    public long getMisses() {
+
+        return misses;
+    }
+}
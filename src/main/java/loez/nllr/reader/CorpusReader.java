@@ -1,13 +1,29 @@
 package loez.nllr.reader;
 
 import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.text.DateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import loez.nllr.domain.Corpus;
 import loez.nllr.domain.Document;
+import loez.nllr.domain.Vocabulary;
 import loez.nllr.preprocessor.PreProcessor;
 
 /**
@@ -16,6 +32,46 @@ import loez.nllr.preprocessor.PreProcessor;
  */
 public class CorpusReader {
 
+    /**
+     * The approximate size in bytes of the chunks a file is split into when reading in parallel.
+     */
+    static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * The maximum number of bytes mapped at once when reading a memory-mapped file.
+     */
+    static final int MAP_WINDOW = 1 << 30;
+
+    /**
+     * The number of chunks per thread that may be read ahead of the chunk being added to the corpus.
+     */
+    static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private final int chunkSize;
+
+    /**
+     * Creates a new corpus reader.
+     */
+    public CorpusReader() {
+
+        this(CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new corpus reader splitting files into chunks of the given size when reading in parallel.
+     * @param chunkSize The approximate size in bytes of the chunks
+     */
+    CorpusReader(final int chunkSize) {
+
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
     /**
      * Reads a corpus from a file.
      * @param path          Path to file
@@ -26,20 +82,34 @@ public class CorpusReader {
      */
     public Corpus readCorpus(final String path, final DateFormat dateFormat, final PreProcessor preprocessor) throws FileNotFoundException {
 
+        return readCorpus(path, dateFormat, preprocessor, Vocabulary.getDefault());
+    }
+
+    /**
+     * Reads a corpus from a file, mapping tokens to ids with the given vocabulary.
+     * @param path          Path to file
+     * @param dateFormat    DateFormat for parsing datestrings to dates
+     * @param preprocessor  Preprocessor for processing words to tokens
+     * @param vocabulary    Vocabulary for mapping tokens to ids
+     * @return              A corpus parsed from the file
+     * @throws java.io.FileNotFoundException
+     */
+    public Corpus readCorpus(final String path, final DateFormat dateFormat, final PreProcessor preprocessor, final Vocabulary vocabulary) throws FileNotFoundException {
+
         try (BufferedReader in = new BufferedReader(new FileReader(path))) {
 
             String rawDocumentString;
-            final Corpus corpus = new Corpus();
+            final Corpus corpus = new Corpus(vocabulary);
+            final DateParser dateParser = new DateParser(dateFormat);
 
             while ((rawDocumentString = in.readLine()) != null) {
 
-                final Document document = DocumentConverter.rawStringToDocument(rawDocumentString, dateFormat, preprocessor);
+                final Document document = DocumentConverter.rawStringToDocument(rawDocumentString, dateParser, preprocessor, vocabulary);
 
                 if (document != null) {
                     corpus.add(document);
                 }
             }
-            corpus.refreshStats();
 
             return corpus;
 
@@ -47,4 +117,194 @@ public class CorpusReader {
             throw new FileNotFoundException();
         }
     }
+
+    /**
+     * Opens a file for reading its documents one at a time.
+     * Unlike readCorpus(), does not keep the documents in memory. The returned iterator must be closed
+     * unless it is read to the end.
+     * @param path          Path to file
+     * @param dateFormat    DateFormat for parsing datestrings to dates
+     * @param preprocessor  Preprocessor for processing words to tokens
+     * @return              An iterator over the documents of the file
+     * @throws java.io.FileNotFoundException
+     */
+    public DocumentIterator iterateDocuments(final String path, final DateFormat dateFormat, final PreProcessor preprocessor) throws FileNotFoundException {
+
+        return iterateDocuments(path, dateFormat, preprocessor, Vocabulary.getDefault());
+    }
+
+    /**
+     * Opens a file for reading its documents one at a time, looking token ids up in the given vocabulary.
+     * The documents are query documents, which do not add their tokens to the vocabulary.
+     * @param path          Path to file
+     * @param dateFormat    DateFormat for parsing datestrings to dates
+     * @param preprocessor  Preprocessor for processing words to tokens
+     * @param vocabulary    Vocabulary for looking up token ids
+     * @return              An iterator over the documents of the file
+     * @throws java.io.FileNotFoundException
+     */
+    public DocumentIterator iterateDocuments(final String path, final DateFormat dateFormat, final PreProcessor preprocessor, final Vocabulary vocabulary) throws FileNotFoundException {
+
+        return new DocumentIterator(new BufferedReader(new FileReader(path)), new DateParser(dateFormat), preprocessor, vocabulary);
+    }
+
+    /**
+     * Reads a corpus from a memory-mapped file.
+     * The mapped bytes are scanned for separators directly, and only the date and body of each line are decoded,
+     * which avoids creating a string for every line. Produces the same corpus as readCorpus().
+     * @param path          Path to file
+     * @param dateFormat    DateFormat for parsing datestrings to dates
+     * @param preprocessor  Preprocessor for processing words to tokens
+     * @param vocabulary    Vocabulary for mapping tokens to ids
+     * @return              A corpus parsed from the file
+     * @throws java.io.FileNotFoundException
+     */
+    public Corpus readMappedCorpus(final String path, final DateFormat dateFormat, final PreProcessor preprocessor, final Vocabulary vocabulary) throws FileNotFoundException {
+
+        try {
+            return new MappedCorpusReader(MAP_WINDOW).read(path, new DateParser(dateFormat), preprocessor, vocabulary);
+        } catch (IOException e) {
+            throw new FileNotFoundException();
+        }
+    }
+
+    /**
+     * Reads a corpus from a file using several threads.
+     * The file is split into chunks of roughly CHUNK_SIZE bytes, aligned to line breaks. Every chunk is parsed
+     * and preprocessed on a worker, and the documents are then built and added to the corpus in the original
+     * line order, so the result is the same as when reading with one thread.
+     * At most CHUNKS_IN_FLIGHT_PER_THREAD chunks per thread are read ahead of the chunk being added, so a slow
+     * chunk does not let the parsed documents of all later chunks pile up in memory.
+     * The preprocessor is called concurrently and must be safe for concurrent use. The file is decoded with the
+     * default charset, which must encode the line feed as a single byte that appears in no other character,
+     * as UTF-8 and the ISO-8859 charsets do.
+     * @param path          Path to file
+     * @param dateFormat    DateFormat for parsing datestrings to dates
+     * @param preprocessor  Preprocessor for processing words to tokens
+     * @param vocabulary    Vocabulary for mapping tokens to ids
+     * @param threads       Number of threads to use. With one thread, the file is memory-mapped and read sequentially.
+     * @return              A corpus parsed from the file
+     * @throws java.io.FileNotFoundException
+     */
+    public Corpus readCorpus(final String path, final DateFormat dateFormat, final PreProcessor preprocessor, final Vocabulary vocabulary, final int threads) throws FileNotFoundException {
+
+        if (threads <= 1) {
+            return readMappedCorpus(path, dateFormat, preprocessor, vocabulary);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+
+            final FileChannel channel = file.getChannel();
+            final long[] bounds = chunkBounds(channel, (int) Math.max(threads, channel.size() / chunkSize));
+            final int chunks = bounds.length - 1;
+            final int inFlight = CHUNKS_IN_FLIGHT_PER_THREAD * threads;
+
+            final DateParser dateParser = new DateParser(dateFormat);
+            final Deque<Future<List<RawDocument>>> pending = new ArrayDeque<>();
+            final Corpus corpus = new Corpus(vocabulary);
+            int submitted = 0;
+
+            for (int i = 0; i < chunks; i++) {
+                while (submitted < chunks && submitted < i + inFlight) {
+                    pending.add(executor.submit(chunkReader(channel, bounds[submitted], bounds[submitted + 1], dateParser, preprocessor)));
+                    submitted++;
+                }
+
+                for (RawDocument raw : pending.poll().get()) {
+                    corpus.add(raw.toDocument(vocabulary));
+                }
+            }
+
+            return corpus;
+
+        } catch (IOException e) {
+            throw new FileNotFoundException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading corpus", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new FileNotFoundException();
+            }
+            throw new IllegalStateException("Reading corpus failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits a file into roughly equal byte ranges, moving every boundary forward to just after a line feed.
+     * @return The start offsets of the ranges, followed by the size of the file. Ranges may be empty.
+     */
+    private long[] chunkBounds(final FileChannel channel, final int chunks) throws IOException {
+
+        final long size = channel.size();
+        final long[] bounds = new long[chunks + 1];
+        bounds[chunks] = size;
+
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, size * i / chunks, size));
+        }
+
+        return bounds;
+    }
+
+    /**
+     * @return The offset just after the first line feed at or after the given offset, or the size of the file
+     */
+    private long nextLineStart(final FileChannel channel, final long from, final long size) throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = from;
+
+        while (position < size) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+
+            position += read;
+        }
+
+        return size;
+    }
+
+    /**
+     * Creates a task that parses and preprocesses the lines of a byte range.
+     * Lines are split by a BufferedReader, so line terminators are handled as in sequential reading.
+     */
+    private Callable<List<RawDocument>> chunkReader(final FileChannel channel, final long from, final long to, final DateParser dateParser, final PreProcessor preprocessor) {
+
+        return new Callable<List<RawDocument>>() {
+            @Override
+            public List<RawDocument> call() throws IOException {
+                final ByteBuffer bytes = ByteBuffer.allocate((int) (to - from));
+
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes, from + bytes.position()) < 0) {
+                        throw new EOFException();
+                    }
+                }
+
+                final List<RawDocument> documents = new ArrayList<>();
+                final BufferedReader in = new BufferedReader(new StringReader(new String(bytes.array(), Charset.defaultCharset())));
+
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    final RawDocument document = DocumentConverter.rawStringToRawDocument(line, dateParser, preprocessor);
+
+                    if (document != null) {
+                        documents.add(document);
+                    }
+                }
+
+                return documents;
+            }
+        };
+    }
 }
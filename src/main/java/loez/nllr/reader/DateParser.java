@@ -0,0 +1,116 @@
+package loez.nllr.reader;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import loez.nllr.domain.EpochDay;
+
+/**
+ * Parses date strings to epoch days, remembering the result for every distinct string.
+ * Corpora repeat the same dates on many lines, so most lines are parsed by a single map lookup.
+ * Strings that cannot be parsed are remembered as well. Once the cache is full, new strings are parsed
+ * but no longer remembered.
+ * Safe for concurrent use: every thread parses with its own clone of the date format.
+ * @author ljleppan@cs
+ */
+public class DateParser {
+
+    /**
+     * The default maximum number of date strings remembered.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+    private final DateFormat format;
+    private final int cacheSize;
+    private final ConcurrentMap<String, Integer> cache = new ConcurrentHashMap<>();
+    private final ThreadLocal<Parser> parsers = new ThreadLocal<Parser>() {
+        @Override
+        protected Parser initialValue() {
+
+            return new Parser((DateFormat) format.clone());
+        }
+    };
+
+    /**
+     * Creates a new date parser with the default cache size.
+     * @param format    The format of the date strings. It is cloned, so later changes to it have no effect.
+     */
+    public DateParser(final DateFormat format) {
+
+        this(format, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new date parser.
+     * @param format    The format of the date strings. It is cloned, so later changes to it have no effect.
+     * @param cacheSize The maximum number of date strings remembered, 0 for none
+     */
+    public DateParser(final DateFormat format, final int cacheSize) {
+
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + cacheSize);
+        }
+
+        this.format = (DateFormat) format.clone();
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Parses a date string. Like DateFormat.parse(), ignores anything after the date.
+     * @param dateString    The date string
+     * @return              The date as an epoch day in the default time zone, or EpochDay.NONE if the string is malformed
+     */
+    public int parse(final String dateString) {
+
+        final Integer cached = cache.get(dateString);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final int epochDay = parsers.get().parse(dateString);
+
+        if (cache.size() < cacheSize) {
+            cache.putIfAbsent(dateString, epochDay);
+        }
+
+        return epochDay;
+    }
+
+    /**
+     * @return The number of date strings remembered
+     */
+    public int getCachedCount() {
+
+        return cache.size();
+    }
+
+    /**
+     * A date format and a calendar for converting its dates to epoch days, used by one thread only.
+     */
+    private static final class Parser {
+
+        private final DateFormat format;
+        private final Calendar calendar = new GregorianCalendar();
+
+        private Parser(final DateFormat format) {
+
+            this.format = format;
+        }
+
+        private int parse(final String dateString) {
+
+            try {
+                calendar.setTime(format.parse(dateString));
+            } catch (ParseException ex) {
+                return EpochDay.NONE;
+            }
+
+            return EpochDay.of(calendar);
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package loez.nllr.reader;
 
 import java.text.DateFormat;
-import java.text.ParseException;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.GregorianCalendar;
+import java.util.ArrayList;
+import java.util.List;
 import loez.nllr.domain.Document;
+import loez.nllr.domain.EpochDay;
+import loez.nllr.domain.Vocabulary;
 import loez.nllr.preprocessor.PreProcessor;
+import loez.nllr.preprocessor.TokenSink;
 
 /**
  * Converts csv-string to documents.
@@ -23,18 +24,54 @@ public class DocumentConverter {
      */
     public static Document rawStringToDocument(final String rawDocumentString, final DateFormat dateParser, final PreProcessor preprocessor) {
 
-        final String[] parts = rawDocumentString.split(";");
+        return rawStringToDocument(rawDocumentString, dateParser, preprocessor, Vocabulary.getDefault());
+    }
 
-        if (parts.length < 3) {
+    /**
+     * Parse a csv-string to a document, mapping its tokens to ids with the given vocabulary.
+     * Parsing many strings is faster with a shared DateParser, see the overload taking one.
+     * @param rawDocumentString The raw string
+     * @param dateParser        A string-to-date parser
+     * @param preprocessor      A words-to-tokens processor
+     * @param vocabulary        A token-to-id dictionary
+     * @return                  A document
+     */
+    public static Document rawStringToDocument(final String rawDocumentString, final DateFormat dateParser, final PreProcessor preprocessor, final Vocabulary vocabulary) {
+
+        return rawStringToDocument(rawDocumentString, new DateParser(dateParser, 0), preprocessor, vocabulary);
+    }
+
+    /**
+     * Parse a csv-string to a document, mapping its tokens to ids with the given vocabulary.
+     * @param rawDocumentString The raw string
+     * @param dateParser        A string-to-date parser, which may be shared by many calls and threads
+     * @param preprocessor      A words-to-tokens processor
+     * @param vocabulary        A token-to-id dictionary
+     * @return                  A document
+     */
+    public static Document rawStringToDocument(final String rawDocumentString, final DateParser dateParser, final PreProcessor preprocessor, final Vocabulary vocabulary) {
+
+        final RawDocument raw = rawStringToRawDocument(rawDocumentString, dateParser, preprocessor);
+
+        if (raw == null) {
             return null;
         }
 
-        Calendar date = null;
-        try {
-            final Date dDate = dateParser.parse(parts[1]);
-            date = new GregorianCalendar();
-            date.setTime(dDate);
-        } catch (ParseException ex) {
+        return raw.toDocument(vocabulary);
+    }
+
+    /**
+     * Parse and preprocess a csv-string, without counting its tokens.
+     * @param rawDocumentString The raw string
+     * @param dateParser        A string-to-date parser
+     * @param preprocessor      A words-to-tokens processor
+     * @return                  The parsed document, or null if the string is malformed
+     */
+    static RawDocument rawStringToRawDocument(final String rawDocumentString, final DateParser dateParser, final PreProcessor preprocessor) {
+
+        final String[] parts = rawDocumentString.split(";");
+
+        if (parts.length < 3) {
             return null;
         }
 
@@ -43,8 +80,33 @@ public class DocumentConverter {
             body.append(parts[i]);
         }
 
-        final String bodyProcessed = preprocessor.process(body.toString());
+        return toRawDocument(parts[1], body.toString(), dateParser, preprocessor);
+    }
+
+    /**
+     * Parse the date and preprocess the body of a document that has already been split into fields.
+     * @param dateString    The date field
+     * @param body          The body, that is the remaining fields joined without separators
+     * @param dateParser    A string-to-date parser
+     * @param preprocessor  A words-to-tokens processor
+     * @return              The parsed document, or null if the date is malformed
+     */
+    static RawDocument toRawDocument(final String dateString, final String body, final DateParser dateParser, final PreProcessor preprocessor) {
+
+        final int date = dateParser.parse(dateString);
+
+        if (date == EpochDay.NONE) {
+            return null;
+        }
+
+        final List<String> tokens = new ArrayList<>();
+        preprocessor.process(body, new TokenSink() {
+            @Override
+            public void accept(final String token) {
+                tokens.add(token);
+            }
+        });
 
-        return new Document(date, bodyProcessed);
+        return new RawDocument(date, tokens);
     }
 }
@@ -0,0 +1,170 @@
+package loez.nllr.reader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import loez.nllr.domain.Document;
+import loez.nllr.domain.Vocabulary;
+import loez.nllr.preprocessor.PreProcessor;
+
+/**
+ * Reads documents from a file one at a time, so that only the current document is held in memory.
+ * The documents are query documents, so tokens not in the vocabulary are not added to it, and memory use
+ * does not grow with the number of distinct tokens read.
+ * Malformed lines are skipped, counted and reported to the listener, if one is set.
+ * The file is closed when the last document has been read, and by close().
+ * @author ljleppan@cs
+ */
+public class DocumentIterator implements Iterator<Document>, Closeable {
+
+    /**
+     * Receives the lines that could not be parsed to documents.
+     */
+    public interface MalformedLineListener {
+
+        /**
+         * Called for every malformed line.
+         * @param lineNumber    The number of the line in the file, starting from 1
+         * @param line          The line
+         */
+        void malformedLine(int lineNumber, String line);
+    }
+
+    private final BufferedReader in;
+    private final DateParser dateParser;
+    private final PreProcessor preprocessor;
+    private final Vocabulary vocabulary;
+    private MalformedLineListener listener;
+    private Document next;
+    private boolean closed;
+    private int lineNumber;
+    private int malformedLines;
+
+    /**
+     * Creates a new iterator over the documents of a reader.
+     * @param in            The reader to read lines from, closed by the iterator
+     * @param dateParser    A string-to-date parser
+     * @param preprocessor  A words-to-tokens processor
+     * @param vocabulary    Vocabulary for looking up token ids, not modified
+     */
+    DocumentIterator(final BufferedReader in, final DateParser dateParser, final PreProcessor preprocessor, final Vocabulary vocabulary) {
+
+        this.in = in;
+        this.dateParser = dateParser;
+        this.preprocessor = preprocessor;
+        this.vocabulary = vocabulary;
+    }
+
+    /**
+     * @param listener  The listener that malformed lines are reported to, or null for none
+     */
+    public void setMalformedLineListener(final MalformedLineListener listener) {
+
+        this.listener = listener;
+    }
+
+    /**
+     * @return The number of malformed lines skipped so far
+     */
+    public int getMalformedLines() {
+
+        return malformedLines;
+    }
+
+    /**
+     * @return The number of lines read so far
+     */
+    public int getLineNumber() {
+
+        return lineNumber;
+    }
+
+    /**
+     * @return true if there are documents left
+     * @throws IllegalStateException if reading the file fails
+     */
+    @Override
+    public boolean hasNext() {
+
+        if (next == null && !closed) {
+            next = readNext();
+        }
+
+        return next != null;
+    }
+
+    /**
+     * @return The next document
+     * @throws NoSuchElementException if there are no documents left
+     * @throws IllegalStateException if reading the file fails
+     */
+    @Override
+    public Document next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Document document = next;
+        next = null;
+
+        return document;
+    }
+
+    /**
+     * Not supported.
+     */
+    @Override
+    public void remove() {
+
+        throw new UnsupportedOperationException("Documents cannot be removed from a file");
+    }
+
+    /**
+     * Closes the file. Any remaining documents are not read.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+
+        next = null;
+
+        if (!closed) {
+            closed = true;
+            in.close();
+        }
+    }
+
+    /**
+     * @return The next well-formed document, or null if the file has ended, in which case it is closed
+     */
+    private Document readNext() {
+
+        try {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                lineNumber++;
+
+                final RawDocument raw = DocumentConverter.rawStringToRawDocument(line, dateParser, preprocessor);
+
+                if (raw != null) {
+                    return raw.toQueryDocument(vocabulary);
+                }
+
+                malformedLines++;
+                if (listener != null) {
+                    listener.malformedLine(lineNumber, line);
+                }
+            }
+
+            close();
+
+            return null;
+
+        } catch (IOException e) {
+            throw new IllegalStateException("Reading documents failed at line " + lineNumber, e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package loez.nllr.reader;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import loez.nllr.domain.Corpus;
+import loez.nllr.domain.Vocabulary;
+import loez.nllr.preprocessor.PreProcessor;
+
+/**
+ * Reads a corpus by memory-mapping the file and scanning the mapped bytes for field and line separators.
+ * Only the date and body fields of each line are decoded to strings, so no line strings or split arrays
+ * are created. Files larger than the window are mapped in several windows, each starting at a line start.
+ * Lines are parsed exactly as DocumentConverter parses them: the second field is the date, the fields after
+ * it are joined without separators into the body, and lines with fewer than three fields are skipped.
+ * The file is decoded with the default charset, which must encode line breaks and ';' as single bytes
+ * that appear in no other character, as UTF-8 and the ISO-8859 charsets do.
+ * @author ljleppan@cs
+ */
+final class MappedCorpusReader {
+
+    private static final int INITIAL_SCRATCH_SIZE = 1024;
+
+    private final int window;
+    private final Charset charset = Charset.defaultCharset();
+    private byte[] scratch = new byte[INITIAL_SCRATCH_SIZE];
+
+    /**
+     * @param window    The maximum number of bytes mapped at once, which limits the length of a line
+     */
+    MappedCorpusReader(final int window) {
+
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+
+        this.window = window;
+    }
+
+    /**
+     * Reads a corpus from a file.
+     * @param path          Path to file
+     * @param dateParser    A string-to-date parser
+     * @param preprocessor  A words-to-tokens processor
+     * @param vocabulary    Vocabulary for mapping tokens to ids
+     * @return              A corpus parsed from the file
+     * @throws IOException  If the file cannot be read, or has a line longer than the window
+     */
+    Corpus read(final String path, final DateParser dateParser, final PreProcessor preprocessor, final Vocabulary vocabulary) throws IOException {
+
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+
+            final FileChannel channel = file.getChannel();
+            final Corpus corpus = new Corpus(vocabulary);
+            final long size = channel.size();
+            long start = 0;
+
+            while (start < size) {
+                final int length = (int) Math.min(window, size - start);
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                final boolean last = start + length == size;
+                final int end = last ? length : lastLineEnd(buffer, length);
+
+                if (end == 0) {
+                    throw new IOException("Line longer than " + window + " bytes at offset " + start);
+                }
+
+                scanLines(buffer, end, dateParser, preprocessor, vocabulary, corpus);
+                start += end;
+            }
+
+            return corpus;
+        }
+    }
+
+    /**
+     * @return The position just after the last line break of the buffer, or 0 if there is none
+     */
+    private static int lastLineEnd(final MappedByteBuffer buffer, final int length) {
+
+        for (int i = length - 1; i >= 0; i--) {
+            if (isLineBreak(buffer.get(i))) {
+                return i + 1;
+            }
+        }
+
+        return 0;
+    }
+
+    private static boolean isLineBreak(final byte b) {
+
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * Parses the lines of the buffer up to the end position into documents.
+     * Both '\r' and '\n' end a line, so "\r\n" leaves an empty line between them, which is skipped as
+     * malformed just like the empty lines BufferedReader returns.
+     */
+    private void scanLines(final MappedByteBuffer buffer, final int end, final DateParser dateParser, final PreProcessor preprocessor, final Vocabulary vocabulary, final Corpus corpus) {
+
+        int first = -1;
+        int second = -1;
+
+        for (int i = 0; i <= end; i++) {
+            final byte b = i < end ? buffer.get(i) : (byte) '\n';
+
+            if (isLineBreak(b)) {
+                if (second >= 0) {
+                    final RawDocument document = parse(buffer, first, second, i, dateParser, preprocessor);
+
+                    if (document != null) {
+                        corpus.add(document.toDocument(vocabulary));
+                    }
+                }
+
+                first = -1;
+                second = -1;
+            } else if (b == ';' && second < 0) {
+                if (first < 0) {
+                    first = i;
+                } else {
+                    second = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the date field between the first two separators and the body after them, without its separators.
+     * @return The parsed document, or null if the body is empty or the date is malformed
+     */
+    private RawDocument parse(final MappedByteBuffer buffer, final int first, final int second, final int lineEnd, final DateParser dateParser, final PreProcessor preprocessor) {
+
+        int bodyLength = 0;
+        ensureScratch(lineEnd - second);
+
+        for (int i = second + 1; i < lineEnd; i++) {
+            final byte b = buffer.get(i);
+
+            if (b != ';') {
+                scratch[bodyLength++] = b;
+            }
+        }
+
+        // String.split() drops trailing empty fields, so a line with nothing but separators after the date is malformed
+        if (bodyLength == 0) {
+            return null;
+        }
+
+        final String body = new String(scratch, 0, bodyLength, charset);
+
+        ensureScratch(second - first);
+        for (int i = first + 1; i < second; i++) {
+            scratch[i - first - 1] = buffer.get(i);
+        }
+
+        final String date = new String(scratch, 0, second - first - 1, charset);
+
+        return DocumentConverter.toRawDocument(date, body, dateParser, preprocessor);
+    }
+
+    private void ensureScratch(final int length) {
+
+        if (scratch.length < length) {
+            scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+        }
+    }
+}
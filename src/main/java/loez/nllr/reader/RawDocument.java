@@ -0,0 +1,48 @@
+package loez.nllr.reader;
+
+import java.util.List;
+
+import loez.nllr.domain.Document;
+import loez.nllr.domain.Vocabulary;
+
+/**
+ * A parsed and preprocessed document whose tokens have not yet been counted.
+ * Lets the expensive parsing and preprocessing run on worker threads while documents are built in input
+ * order, so vocabulary ids are assigned exactly as when reading sequentially.
+ * @author ljleppan@cs
+ */
+final class RawDocument {
+
+    private final int date;
+    private final List<String> tokens;
+
+    /**
+     * @param date      The date as an epoch day
+     * @param tokens    The tokens of the preprocessed body
+     */
+    RawDocument(final int date, final List<String> tokens) {
+
+        this.date = date;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Counts the tokens of the document.
+     * @param vocabulary    Vocabulary for mapping tokens to ids
+     * @return              The document
+     */
+    Document toDocument(final Vocabulary vocabulary) {
+
+        return new Document(date, tokens, vocabulary);
+    }
+
+    /**
+     * Creates a query document of the tokens, without adding tokens to the vocabulary.
+     * @param vocabulary    Vocabulary for looking up token ids
+     * @return              The query document
+     */
+    Document toQueryDocument(final Vocabulary vocabulary) {
+
+        return Document.query(date, tokens, vocabulary);
+    }
+}
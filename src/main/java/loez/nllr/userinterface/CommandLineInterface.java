@@ -1,25 +1,29 @@
 package loez.nllr.userinterface;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.SortedMap;
 
-import loez.nllr.algorithm.Argmax;
 import loez.nllr.algorithm.Argmax.Result;
 import loez.nllr.algorithm.Nllr;
+import loez.nllr.algorithm.NllrModel;
+import loez.nllr.algorithm.PreparedQuery;
 import loez.nllr.domain.Corpus;
 import loez.nllr.domain.Document;
+import loez.nllr.domain.EpochDay;
 import loez.nllr.domain.TimeSpan;
 import loez.nllr.preprocessor.PreProcessor;
 import loez.nllr.preprocessor.SimplePreprocessor;
 import loez.nllr.preprocessor.exception.StemmerCreationException;
 import loez.nllr.reader.CorpusReader;
+import loez.nllr.reader.DocumentIterator;
 
 /**
  * A command line interface for the NLLR-application.
@@ -37,9 +41,9 @@ public class CommandLineInterface implements UserInterface {
     private TimeSpan timeSpan;
     private CorpusReader corpusReader;
     private Corpus referenceCorpus;
-    private Corpus testCorpus;
     private List<Corpus> timePartitions;
     private Nllr nllr;
+    private NllrModel model;
 
     private int correct;
     private int wrong;
@@ -193,27 +197,27 @@ public class CommandLineInterface implements UserInterface {
             final String input = in.nextLine().trim().toLowerCase();
 
             if (input.equals("") || input.equals("daily")) {
-                timeSpan = new TimeSpan(referenceCorpus.getStartDate(), TimeSpan.Length.DAILY);
+                timeSpan = new TimeSpan(referenceCorpus.getStartDay(), TimeSpan.Length.DAILY);
                 break;
             }
 
             if (input.equals("weekly")) {
-                timeSpan = new TimeSpan(referenceCorpus.getStartDate(), TimeSpan.Length.WEEKLY);
+                timeSpan = new TimeSpan(referenceCorpus.getStartDay(), TimeSpan.Length.WEEKLY);
                 break;
             }
 
             if (input.equals("biweekly")) {
-                timeSpan = new TimeSpan(referenceCorpus.getStartDate(), TimeSpan.Length.BIWEEKLY);
+                timeSpan = new TimeSpan(referenceCorpus.getStartDay(), TimeSpan.Length.BIWEEKLY);
                 break;
             }
 
             if (input.equals("monthly")) {
-                timeSpan = new TimeSpan(referenceCorpus.getStartDate(), TimeSpan.Length.MONTHLY);
+                timeSpan = new TimeSpan(referenceCorpus.getStartDay(), TimeSpan.Length.MONTHLY);
                 break;
             }
 
             if (input.equals("yearly")) {
-                timeSpan = new TimeSpan(referenceCorpus.getStartDate(), TimeSpan.Length.YEARLY);
+                timeSpan = new TimeSpan(referenceCorpus.getStartDay(), TimeSpan.Length.YEARLY);
                 break;
             }
 
@@ -230,32 +234,24 @@ public class CommandLineInterface implements UserInterface {
 
         timePartitions = new ArrayList<>();
 
-        final Calendar startDate = (Calendar) referenceCorpus.getStartDate().clone();
-        final Calendar endDate = (Calendar) referenceCorpus.getEndDate().clone();
+        System.out.println("Getting time partitions for the reference corpus spanning " +  print(referenceCorpus.getStartDay()) + " to " + print(referenceCorpus.getEndDay()) + " :");
 
-        System.out.println("Getting time partitions for the reference corpus spanning " +  dateFormat.format(startDate.getTime()) + " to " + dateFormat.format(endDate.getTime()) + " :");
+        final SortedMap<Integer, Corpus> partitions = referenceCorpus.partition(timeSpan);
 
-        while (!timeSpan.getStart().after(endDate)) {
-            processSingleTimepartition(timeSpan.getStart(), timeSpan.getEnd());
-            timeSpan.advance();
+        if (!partitions.isEmpty()) {
+            for (int i = 0; i <= partitions.lastKey(); i++) {
+                processSingleTimepartition(timeSpan.getStartDay(i), timeSpan.getEndDay(i), partitions.get(i));
+            }
         }
 
         System.out.println("Done building time partitions.\n");
     }
 
-    private void clearDate(final Calendar date) {
-
-        date.clear(Calendar.HOUR);
-        date.clear(Calendar.MINUTE);
-        date.clear(Calendar.SECOND);
-    }
+    private void processSingleTimepartition(final int partitionStartDate, final int partitionEndDate, final Corpus timePartition) {
 
-    private void processSingleTimepartition(final Calendar partitionStartDate, final Calendar partitionEndDate) {
+        System.out.print("\t" + print(partitionStartDate) + " - " + print(partitionEndDate));
 
-        System.out.print("\t" + dateFormat.format(partitionStartDate.getTime()) + " - " + dateFormat.format(partitionEndDate.getTime()));
-        final Corpus timePartition = referenceCorpus.getTimePartition(partitionStartDate, partitionEndDate);
-
-        if (!timePartition.getDocuments().isEmpty()) {
+        if (timePartition != null) {
             timePartitions.add(timePartition);
             System.out.println(" (" + timePartition.getDocuments().size() + " documents)");
         } else {
@@ -266,6 +262,7 @@ public class CommandLineInterface implements UserInterface {
     private void setupNllr() {
 
         nllr = new Nllr(referenceCorpus);
+        model = nllr.compile(timePartitions);
     }
 
     private void printCommands() {
@@ -322,10 +319,20 @@ public class CommandLineInterface implements UserInterface {
         correct = 0;
         wrong = 0;
 
-        getTestCorpus();
+        try (DocumentIterator documents = getTestCorpus()) {
+
+            while (documents.hasNext()) {
+                processDocument(documents.next());
+            }
+
+            System.out.println("\tDone processing test corpus. \n");
 
-        for (Document document : testCorpus.getDocuments()) {
-            processDocument(document);
+            if (documents.getMalformedLines() > 0) {
+                System.out.println("Skipped " + documents.getMalformedLines() + " malformed lines.");
+            }
+
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("\tReading test corpus failed: " + e.getMessage());
         }
 
         System.out.println("Correct: " + correct + ", Wrong:" + wrong);
@@ -334,36 +341,39 @@ public class CommandLineInterface implements UserInterface {
         wrong = 0;
     }
 
-    private void getTestCorpus() {
+    private DocumentIterator getTestCorpus() {
 
         String testCorpusPath = queryFor("Set path to test corpus:");
+        DocumentIterator documents = openTestCorpus(testCorpusPath);
 
-        while (!processTestCorpus(testCorpusPath)) {
+        while (documents == null) {
             System.out.println("File not found.");
             testCorpusPath = queryFor("Set path to test corpus:");
+            documents = openTestCorpus(testCorpusPath);
         }
+
+        return documents;
     }
 
-    private boolean processTestCorpus(final String testCorpusPath) {
+    /**
+     * Opens the test corpus for streaming, so that only the document being processed is held in memory.
+     * @return The documents of the test corpus, or null if the file was not found
+     */
+    private DocumentIterator openTestCorpus(final String testCorpusPath) {
 
         System.out.println("\tProcessing test corpus (this might take long) ... ");
 
         try {
-            testCorpus = corpusReader.readCorpus(testCorpusPath, dateFormat, preProcessor);
+            return corpusReader.iterateDocuments(testCorpusPath, dateFormat, preProcessor);
         } catch (FileNotFoundException e) {
-            return false;
+            return null;
         }
-
-        System.out.println("\tDone processing test corpus. \n");
-
-        return true;
     }
 
     private void processDocument(final Document document) {
 
-        final Object[] argMaxArgs = {document};
-
-        final Result<Corpus> result = new Argmax<Corpus>().single(nllr, timePartitions, argMaxArgs);
+        final PreparedQuery query = nllr.prepare(document);
+        final Result<Corpus> result = model.best(query);
 
         final Corpus resultCorpus = result.getArgument();
         final double resultNllr = result.getValue();
@@ -374,22 +384,22 @@ public class CommandLineInterface implements UserInterface {
     private void printResult(final Document document, final Corpus resultCorpus, final double resultNllr) {
 
         String docDate = "UNKNOWN";
-        if (document.getDate() != null) {
-            docDate = dateFormat.format(document.getDate().getTime());
+        if (document.hasDate()) {
+            docDate = print(document.getEpochDay());
         }
 
         String corpStartDate = "UNKNOWN";
-        if (resultCorpus != null && resultCorpus.getStartDate() != null) {
-            corpStartDate = dateFormat.format(resultCorpus.getStartDate().getTime());
+        if (resultCorpus != null && resultCorpus.getStartDay() != EpochDay.NONE) {
+            corpStartDate = print(resultCorpus.getStartDay());
         }
 
         String corpEndDate = "UNKNOWN";
-        if (resultCorpus != null && resultCorpus.getEndDate() != null) {
-            corpEndDate = dateFormat.format(resultCorpus.getEndDate().getTime());
+        if (resultCorpus != null && resultCorpus.getEndDay() != EpochDay.NONE) {
+            corpEndDate = print(resultCorpus.getEndDay());
         }
 
-        if (document.getDate() != null && resultCorpus.getEndDate() != null && resultCorpus.getStartDate() != null) {
-            if (!document.getDate().before(resultCorpus.getStartDate()) && !document.getDate().after(resultCorpus.getEndDate())) {
+        if (document.hasDate() && resultCorpus.getStartDay() != EpochDay.NONE) {
+            if (document.getEpochDay() >= resultCorpus.getStartDay() && document.getEpochDay() <= resultCorpus.getEndDay()) {
                 correct++;
             } else {
                 wrong++;
@@ -409,4 +419,9 @@ public class CommandLineInterface implements UserInterface {
 
         System.out.println(out.toString());
     }
+
+    private String print(final int epochDay) {
+
+        return dateFormat.format(EpochDay.toCalendar(epochDay).getTime());
+    }
 }
@@ -3,6 +3,9 @@ package loez.nllr.util;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import loez.nllr.domain.Corpus;
 import loez.nllr.domain.Document;
 
@@ -10,7 +13,7 @@ public class CrossValidationHelper {
 
     public static List<Corpus> split(final Corpus corpus, final int parts) {
 
-        final List<Document> documents = corpus.getDocuments();
+        final List<Document> documents = new ArrayList<>(corpus.getDocuments());
         Collections.shuffle(documents);
 
         final int count = documents.size();
@@ -23,7 +26,7 @@ public class CrossValidationHelper {
             final int endIndex = (i + 1) * perCorpus;
 
             final List<Document> subList = new ArrayList<>(documents.subList(startIndex, endIndex));
-            result.add(new Corpus(subList));
+            result.add(new Corpus(subList, corpus.getVocabulary()));
         }
 
         final int leftOvers = count % parts;
@@ -38,7 +41,7 @@ public class CrossValidationHelper {
 
                 final Document document = documents.get(lastAddedIndex + i);
 
-                current.getDocuments().add(document);
+                current.add(document);
             }
         }
 
@@ -50,11 +53,38 @@ public class CrossValidationHelper {
         final List<Corpus> trainingCorpuses = new ArrayList<>(parts);
         trainingCorpuses.remove(testCorpus);
 
-        final Corpus resultCorpus = new Corpus();
+        final Corpus resultCorpus = new Corpus(testCorpus.getVocabulary());
         for (Corpus corpus : trainingCorpuses) {
             resultCorpus.addAll(corpus.getDocuments());
         }
 
         return resultCorpus;
     }
+
+    /**
+     * Builds the time partitions of a training corpus from the time partitions of the whole corpus and of the test corpus.
+     * Each training partition's stats are derived by subtracting the test partition from the whole partition,
+     * so no documents are recounted. Partitions that the test corpus does not touch are shared with the
+     * whole corpus's partitions, and must not be modified.
+     * @param wholePartitions   Partitions of the whole corpus, as returned by Corpus.partition()
+     * @param testPartitions    Partitions of the test corpus with the same time span
+     * @return                  The non-empty partitions of the training corpus, keyed by time span index
+     */
+    public static SortedMap<Integer, Corpus> buildTrainingPartitions(final SortedMap<Integer, Corpus> wholePartitions, final SortedMap<Integer, Corpus> testPartitions) {
+
+        final SortedMap<Integer, Corpus> result = new TreeMap<>();
+
+        for (Map.Entry<Integer, Corpus> entry : wholePartitions.entrySet()) {
+
+            final Corpus testPartition = testPartitions.get(entry.getKey());
+
+            if (testPartition == null) {
+                result.put(entry.getKey(), entry.getValue());
+            } else if (testPartition.getDocuments().size() < entry.getValue().getDocuments().size()) {
+                result.put(entry.getKey(), entry.getValue().difference(testPartition));
+            }
+        }
+
+        return result;
+    }
 }
@@ -0,0 +1,157 @@
+package loez.nllr.util;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+
+import loez.nllr.domain.Corpus;
+import loez.nllr.domain.Document;
+
+/**
+ * A plan for splitting a corpus into cross-validation folds.
+ * The documents are shuffled as a permutation of int indices into a single shared array, and every fold is a
+ * contiguous range of the permutation. Test and training document lists are read-only views over the shared
+ * array, so making folds neither mutates the input corpus nor copies documents into new lists.
+ * The same corpus, fold count and seed always give the same folds.
+ * @author ljleppan@cs
+ */
+public class FoldPlan {
+
+    private final Corpus corpus;
+    private final Document[] documents;
+    private final int[] order;
+    private final int[] foldStarts;
+
+    /**
+     * Creates a new fold plan.
+     * Folds differ in size by at most one document, the first folds getting the extra documents.
+     * @param corpus    The corpus to split. Must not be modified while the plan is in use.
+     * @param folds     The number of folds, at least 1
+     * @param seed      The seed of the shuffle
+     */
+    public FoldPlan(final Corpus corpus, final int folds, final long seed) {
+
+        if (folds < 1) {
+            throw new IllegalArgumentException("Fold count must be positive: " + folds);
+        }
+
+        final List<Document> corpusDocuments = corpus.getDocuments();
+
+        this.corpus = corpus;
+        this.documents = corpusDocuments.toArray(new Document[corpusDocuments.size()]);
+        this.order = new int[documents.length];
+
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        // Fisher-Yates shuffle
+        final Random random = new Random(seed);
+        for (int i = order.length - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        this.foldStarts = new int[folds + 1];
+        final int perFold = order.length / folds;
+        final int leftOvers = order.length % folds;
+
+        for (int i = 0; i < folds; i++) {
+            foldStarts[i + 1] = foldStarts[i] + perFold + (i < leftOvers ? 1 : 0);
+        }
+    }
+
+    /**
+     * @return The number of folds
+     */
+    public int size() {
+
+        return foldStarts.length - 1;
+    }
+
+    /**
+     * @param fold  Index of the fold
+     * @return      A read-only view of the test documents of the fold
+     */
+    public List<Document> testDocuments(final int fold) {
+
+        return new IndexView(documents, order, foldStarts[fold], foldStarts[fold + 1], 0, 0);
+    }
+
+    /**
+     * @param fold  Index of the fold
+     * @return      A read-only view of the training documents of the fold, that is the documents of all other folds
+     */
+    public List<Document> trainingDocuments(final int fold) {
+
+        return new IndexView(documents, order, 0, foldStarts[fold], foldStarts[fold + 1], order.length);
+    }
+
+    /**
+     * Creates the test corpus of a fold. The corpus is backed by a read-only view and cannot be modified.
+     * @param fold  Index of the fold
+     * @return      The test corpus of the fold
+     */
+    public Corpus testCorpus(final int fold) {
+
+        return new Corpus(testDocuments(fold), corpus.getVocabulary());
+    }
+
+    /**
+     * Creates the training corpus of a fold. The stats are derived by subtracting the test corpus from the
+     * whole corpus. The corpus is backed by a read-only view and cannot be modified.
+     * @param fold          Index of the fold
+     * @param testCorpus    The test corpus of the fold, as returned by testCorpus()
+     * @return              The training corpus of the fold
+     */
+    public Corpus trainingCorpus(final int fold, final Corpus testCorpus) {
+
+        return corpus.difference(testCorpus, trainingDocuments(fold));
+    }
+
+    /**
+     * A read-only list of the documents at up to two ranges of the permutation.
+     */
+    private static final class IndexView extends AbstractList<Document> implements RandomAccess {
+
+        private final Document[] documents;
+        private final int[] order;
+        private final int firstFrom;
+        private final int firstLength;
+        private final int secondFrom;
+        private final int size;
+
+        private IndexView(final Document[] documents, final int[] order, final int firstFrom, final int firstTo, final int secondFrom, final int secondTo) {
+
+            this.documents = documents;
+            this.order = order;
+            this.firstFrom = firstFrom;
+            this.firstLength = firstTo - firstFrom;
+            this.secondFrom = secondFrom;
+            this.size = firstLength + secondTo - secondFrom;
+        }
+
+        @Override
+        public Document get(final int index) {
+
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+
+            if (index < firstLength) {
+                return documents[order[firstFrom + index]];
+            }
+
+            return documents[order[secondFrom + index - firstLength]];
+        }
+
+        @Override
+        public int size() {
+
+            return size;
+        }
+    }
+}
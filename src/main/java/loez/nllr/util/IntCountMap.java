@@ -0,0 +1,341 @@
+package loez.nllr.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from non-negative int keys to int counts.
+ * Uses open addressing with linear probing over primitive arrays, so neither keys nor counts are boxed.
+ * Keys whose count drops to zero are removed, so absent keys and zero counts are indistinguishable.
+ * Not safe for concurrent modification.
+ * @author ljleppan@cs
+ */
+public class IntCountMap {
+
+    /**
+     * The key value of an unused slot.
+     */
+    public static final int EMPTY = -1;
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    private static final int MAX_LOAD_NUMERATOR = 3;
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates a new map with room for the expected amount of keys.
+     * @param expectedSize  The expected amount of keys
+     */
+    public IntCountMap(final int expectedSize) {
+
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Creates a new empty map.
+     */
+    public IntCountMap() {
+
+        this(DEFAULT_CAPACITY / 2);
+    }
+
+    /**
+     * Creates a new map with the same keys and counts as another map.
+     * @param other The map to copy
+     */
+    public IntCountMap(final IntCountMap other) {
+
+        keys = other.keys.clone();
+        values = other.values.clone();
+        mask = other.mask;
+        size = other.size;
+    }
+
+    /**
+     * @param key   The key
+     * @return      The count of the key, or zero if the key is not present
+     */
+    public int get(final int key) {
+
+        if (key < 0) {
+            return 0;
+        }
+
+        final int slot = find(key);
+
+        if (slot < 0) {
+            return 0;
+        }
+
+        return values[slot];
+    }
+
+    /**
+     * @param key   The key
+     * @return      True if the key has a non-zero count
+     */
+    public boolean containsKey(final int key) {
+
+        return key >= 0 && find(key) >= 0;
+    }
+
+    /**
+     * Adds delta to the count of a key, inserting the key if it is not present.
+     * Only a single probe sequence is walked. If the resulting count is zero, the key is removed.
+     * @param key   The key, must be non-negative
+     * @param delta The amount to add, may be negative
+     * @return      The new count of the key
+     */
+    public int add(final int key, final int delta) {
+
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative key: " + key);
+        }
+
+        int slot = slotFor(key);
+
+        while (keys[slot] != EMPTY) {
+
+            if (keys[slot] == key) {
+                final int count = values[slot] + delta;
+
+                if (count == 0) {
+                    removeSlot(slot);
+                } else {
+                    values[slot] = count;
+                }
+
+                return count;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        if (delta == 0) {
+            return 0;
+        }
+
+        keys[slot] = key;
+        values[slot] = delta;
+        size++;
+
+        if (size * MAX_LOAD_DENOMINATOR > keys.length * MAX_LOAD_NUMERATOR) {
+            rehash(keys.length * 2);
+        }
+
+        return delta;
+    }
+
+    /**
+     * Increments the count of a key by one.
+     * @param key   The key, must be non-negative
+     * @return      The new count of the key
+     */
+    public int increment(final int key) {
+
+        return add(key, 1);
+    }
+
+    /**
+     * Adds the counts of another map, multiplied by sign, to the counts of this map.
+     * With a sign of -1, subtracts the other map, leaving out keys whose count drops to zero.
+     * @param other The map to add
+     * @param sign  The multiplier of the other map's counts, usually 1 or -1
+     */
+    public void addAll(final IntCountMap other, final int sign) {
+
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) {
+                add(other.keys[slot], sign * other.values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Removes a key.
+     * @param key   The key
+     * @return      The count the key had, or zero if it was not present
+     */
+    public int remove(final int key) {
+
+        if (key < 0) {
+            return 0;
+        }
+
+        final int slot = find(key);
+
+        if (slot < 0) {
+            return 0;
+        }
+
+        final int count = values[slot];
+        removeSlot(slot);
+
+        return count;
+    }
+
+    /**
+     * @return The amount of keys in the map
+     */
+    public int size() {
+
+        return size;
+    }
+
+    /**
+     * An estimate of the memory used by the map, counting the key and count arrays.
+     * @return The estimated size in bytes
+     */
+    public long footprint() {
+
+        return (long) (keys.length + values.length) * Integer.SIZE / Byte.SIZE;
+    }
+
+    /**
+     * @return True if the map contains no keys
+     */
+    public boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    /**
+     * @return A new array containing all keys of the map. Order is not specified.
+     */
+    public int[] keys() {
+
+        final int[] result = new int[size];
+
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                result[i] = keys[slot];
+                i++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The amount of slots in the map, for allocation-free iteration with keyAt() and valueAt().
+     * @return The amount of slots
+     */
+    public int capacity() {
+
+        return keys.length;
+    }
+
+    /**
+     * @param slot  A slot index, between zero and capacity()
+     * @return      The key in the slot, or EMPTY if the slot is unused
+     */
+    public int keyAt(final int slot) {
+
+        return keys[slot];
+    }
+
+    /**
+     * @param slot  A slot index, between zero and capacity()
+     * @return      The count in the slot, or zero if the slot is unused
+     */
+    public int valueAt(final int slot) {
+
+        return values[slot];
+    }
+
+    private int find(final int key) {
+
+        int slot = slotFor(key);
+
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Removes the entry in a slot by shifting later entries of the probe sequence back into the gap.
+     * Keeps every remaining key reachable without tombstones.
+     */
+    private void removeSlot(final int slot) {
+
+        int gap = slot;
+        int i = (slot + 1) & mask;
+
+        while (keys[i] != EMPTY) {
+
+            final int home = slotFor(keys[i]);
+
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+        size--;
+    }
+
+    private int slotFor(final int key) {
+
+        final int hash = key * HASH_MULTIPLIER;
+
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void rehash(final int newCapacity) {
+
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotFor(oldKeys[i]);
+
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private static int capacityFor(final int expectedSize) {
+
+        int capacity = DEFAULT_CAPACITY;
+
+        while (expectedSize * MAX_LOAD_DENOMINATOR > capacity * MAX_LOAD_NUMERATOR) {
+            capacity *= 2;
+        }
+
+        return capacity;
+    }
+}
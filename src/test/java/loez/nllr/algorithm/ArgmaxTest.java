@@ -78,4 +78,93 @@ public class ArgmaxTest {
         assertEquals("argmax multiple should return correct values in correct order",
                 0.75, results.get(4).getValue(), 0.001);
     }
+
+    @Test
+    public void argmaxTestMultipleIndices() {
+
+        final List<Double> args = new ArrayList<>();
+        args.add(2.0);
+        args.add(2.5);
+        args.add(1.0);
+        args.add(2.5);
+        args.add(100.0);
+
+        final int[] indices = new Argmax<Double>().multipleIndices(new Same(), 3, args, new Object[]{1});
+
+        assertArrayEquals("argmax multiple indices should prefer earlier arguments on ties",
+                new int[]{4, 1, 3}, indices);
+    }
+
+    @Test
+    public void argmaxTestMultipleWithFewerArgsThanAmount() {
+
+        final List<Double> args = new ArrayList<>();
+        args.add(1.0);
+        args.add(3.0);
+
+        final List<Result<Double>> results = new Argmax<Double>().multiple(new Same(), 5, args, new Object[]{1});
+
+        assertEquals(2, results.size());
+        assertEquals(3.0, results.get(0).getArgument(), 0.001);
+        assertEquals(1.0, results.get(1).getArgument(), 0.001);
+    }
+
+    @Test
+    public void argmaxTestMultipleReusesSelection() {
+
+        final List<Double> args = new ArrayList<>();
+        args.add(1.0);
+        args.add(3.0);
+        args.add(2.0);
+
+        final TopK selection = new TopK(2);
+        selection.offer(7, 1000.0);
+
+        new Argmax<Double>().multiple(new Same(), args, new Object[]{1}, selection);
+
+        assertArrayEquals(new int[]{1, 2}, selection.drainIndices());
+    }
+
+    @Test
+    public void argmaxTestTypedScorer() {
+
+        final List<String> args = new ArrayList<>();
+        args.add("a");
+        args.add("ccc");
+        args.add("bb");
+        args.add("ddd");
+
+        final Scorer<String, Integer> lengthTimes = new Scorer<String, Integer>() {
+            @Override
+            public double score(final String argument, final Integer context) {
+                return argument.length() * context;
+            }
+        };
+
+        final Result<String> max = new Argmax<String>().single(lengthTimes, args, 2);
+
+        assertEquals("ccc", max.getArgument());
+        assertEquals(6.0, max.getValue(), 0.001);
+
+        final List<Result<String>> results = new Argmax<String>().multiple(lengthTimes, 2, args, 2);
+
+        assertEquals("ccc", results.get(0).getArgument());
+        assertEquals("ddd", results.get(1).getArgument());
+    }
+
+    @Test
+    public void argmaxTestIntScorer() {
+
+        final int[] args = {3, -7, 5, 5, 1};
+
+        final IntScorer<Integer> plus = new IntScorer<Integer>() {
+            @Override
+            public double score(final int argument, final Integer context) {
+                return argument + context;
+            }
+        };
+
+        assertEquals(2, Argmax.singleIndex(plus, args, 10));
+        assertArrayEquals(new int[]{2, 3, 0}, Argmax.multipleIndices(plus, 3, args, 10));
+    }
 }
@@ -0,0 +1,179 @@
+package loez.nllr.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import loez.nllr.domain.Corpus;
+import loez.nllr.domain.Document;
+import loez.nllr.domain.EpochDay;
+import loez.nllr.domain.Vocabulary;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NllrModelTest {
+
+    private static final double DELTA = 0.000001;
+
+    private Corpus candidateA;
+    private Corpus candidateB;
+    private List<Corpus> partitions;
+
+    private Nllr nllr;
+    private NllrModel model;
+
+    @Before
+    public void setUp() {
+
+        final Document docA = new Document(null, "auto juttu juttu auto asia");
+        final Document docB = new Document(null, "auto hämminki kiva hässäkkä");
+        final Document docC = new Document(null, "testaus olla aina tosi kiva auto");
+        final Document docD = new Document(null, "mutta token keksiä joskus vaikea");
+
+        final List<Document> refDocs = new ArrayList<>();
+        refDocs.add(docA);
+        refDocs.add(docB);
+        refDocs.add(docC);
+        refDocs.add(docD);
+        final Corpus reference = new Corpus(refDocs);
+
+        final List<Document> candADocs = new ArrayList<>();
+        candADocs.add(docA);
+        candADocs.add(docB);
+        candidateA = new Corpus(candADocs);
+
+        final List<Document> candBDocs = new ArrayList<>();
+        candBDocs.add(docC);
+        candBDocs.add(docD);
+        candidateB = new Corpus(candBDocs);
+
+        partitions = new ArrayList<>();
+        partitions.add(candidateA);
+        partitions.add(candidateB);
+
+        nllr = new Nllr(reference);
+        model = nllr.compile(partitions);
+    }
+
+    @Test
+    public void scoresMatchNllr() {
+
+        final Document query = new Document(null, "token token hässäkkä auto joskus");
+        final PreparedQuery prepared = nllr.prepare(query);
+
+        assertEquals(nllr.calculateNllr(prepared, candidateA), model.score(0, prepared), DELTA);
+        assertEquals(nllr.calculateNllr(prepared, candidateB), model.score(1, prepared), DELTA);
+    }
+
+    @Test
+    public void scoresMatchNllrForTokensMissingFromReference() {
+
+        final Document query = new Document(null, "tuntematon sana auto kiva tuntematon");
+        final PreparedQuery prepared = nllr.prepare(query);
+
+        assertEquals(nllr.calculateNllr(prepared, candidateA), model.score(0, prepared), DELTA);
+        assertEquals(nllr.calculateNllr(prepared, candidateB), model.score(1, prepared), DELTA);
+    }
+
+    @Test
+    public void queryDocumentScoresAsDocument() {
+
+        final List<String> tokens = Arrays.asList("outo", "outo", "auto", "kiva", "sana2");
+        final PreparedQuery query = nllr.prepare(Document.query(EpochDay.NONE, tokens, Vocabulary.getDefault()));
+        final PreparedQuery document = nllr.prepare(new Document(EpochDay.NONE, tokens, Vocabulary.getDefault()));
+
+        assertArrayEquals(model.scoreAll(document), model.scoreAll(query), DELTA);
+        assertEquals(model.score(1, document), model.score(1, query), DELTA);
+        assertEquals(nllr.calculateNllr(document, candidateA), nllr.calculateNllr(query, candidateA), DELTA);
+    }
+
+    @Test
+    public void scoreAllMatchesScore() {
+
+        final PreparedQuery prepared = nllr.prepare(new Document(null, "token hässäkkä auto joskus tuntematon kiva"));
+        final double[] scores = model.scoreAll(prepared);
+
+        assertEquals(2, scores.length);
+        assertEquals(model.score(0, prepared), scores[0], DELTA);
+        assertEquals(model.score(1, prepared), scores[1], DELTA);
+    }
+
+    @Test
+    public void bestFindsHighestScoringPartition() {
+
+        final PreparedQuery prepared = nllr.prepare(new Document(null, "juttu juttu asia"));
+        final Argmax.Result<Corpus> best = model.best(prepared);
+
+        assertSame(candidateA, best.getArgument());
+        assertEquals(model.score(0, prepared), best.getValue(), DELTA);
+
+        final PreparedQuery other = nllr.prepare(new Document(null, "testaus token vaikea"));
+
+        assertSame(candidateB, model.best(other).getArgument());
+    }
+
+    @Test
+    public void bestPrefersLowerIndexOnTies() {
+
+        final PreparedQuery prepared = nllr.prepare(new Document(null, "tuntematon"));
+
+        assertSame(candidateA, model.best(prepared).getArgument());
+    }
+
+    @Test
+    public void bestOfEmptyModelIsNull() {
+
+        final NllrModel empty = nllr.compile(new ArrayList<Corpus>());
+
+        assertNull(empty.best(nllr.prepare(new Document(null, "auto"))));
+    }
+
+    @Test
+    public void topOrdersPartitionsByScore() {
+
+        final PreparedQuery prepared = nllr.prepare(new Document(null, "testaus token vaikea"));
+        final List<Argmax.Result<Corpus>> top = model.top(prepared, 5);
+
+        assertEquals(2, top.size());
+        assertSame(candidateB, top.get(0).getArgument());
+        assertSame(candidateA, top.get(1).getArgument());
+        assertTrue(top.get(0).getValue() >= top.get(1).getValue());
+
+        assertEquals(1, model.top(prepared, 1).size());
+    }
+
+    @Test
+    public void partitionsKeepTheirOrder() {
+
+        assertEquals(2, model.size());
+        assertSame(candidateA, model.getPartition(0));
+        assertSame(candidateB, model.getPartition(1));
+    }
+
+    @Test
+    public void modelIsNotAffectedByChangesToThePartitionList() {
+
+        partitions.clear();
+
+        assertEquals(2, model.size());
+    }
+
+    @Test
+    public void calculateScoresPartitionIndex() {
+
+        final PreparedQuery prepared = nllr.prepare(new Document(null, "auto juttu"));
+        final Object[] args = {1, prepared};
+
+        assertEquals(model.score(1, prepared), model.calculate(args), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void calculateWrongArgTypes() {
+
+        final Object[] args = {candidateA, nllr.prepare(new Document(null, "auto"))};
+        model.calculate(args);
+    }
+}
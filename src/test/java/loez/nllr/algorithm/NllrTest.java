@@ -126,6 +126,73 @@ public class NllrTest {
                 equal(expected, actual));
     }
 
+    @Test
+    public void testPreparedQueryGivesSameResults() {
+
+        final PreparedQuery prepared = nllr.prepare(query);
+
+        assertTrue("NLLR calculated with a prepared query should match NLLR calculation #1",
+                equal(nllr.calculateNllr(query, candidateA), nllr.calculateNllr(prepared, candidateA)));
+        assertTrue("NLLR calculated with a prepared query should match NLLR calculation #2",
+                equal(nllr.calculateNllr(query, candidateB), nllr.calculateNllr(prepared, candidateB)));
+    }
+
+    @Test
+    public void testPrepare() {
+
+        final PreparedQuery prepared = nllr.prepare(query);
+
+        assertSame("Prepared query should retain the query document",
+                query, prepared.getQuery());
+        assertEquals("Prepared query should contain all unique tokens of a short query",
+                4, prepared.size());
+
+        for (int i = 0; i < prepared.size(); i++) {
+            final String token = prepared.getToken(i);
+
+            assertTrue("Prepared query probabilities should match the query document",
+                    equal(nllr.calculateTokenProbability(token, query), prepared.getQueryProbability(i)));
+            assertTrue("Prepared corpus probabilities should match the reference corpus",
+                    equal(nllr.calculateTokenProbability(token, reference), prepared.getCorpusProbability(i)));
+        }
+    }
+
+    @Test
+    public void calculateWithPreparedQuery() {
+        final double expected = -2.4234619471003476;
+
+        final Object[] args = {candidateB, nllr.prepare(query)};
+        final double actual = nllr.calculate(args);
+
+        assertTrue("calculate() with a prepared query didn't match NLLR calculation #2 result. Expected " + expected + " got " + actual,
+                equal(expected, actual));
+    }
+
+    @Test
+    public void scoreMatchesCalculateNllr() {
+
+        final PreparedQuery prepared = nllr.prepare(query);
+
+        assertTrue(equal(nllr.calculateNllr(prepared, candidateA), nllr.score(candidateA, prepared)));
+    }
+
+    @Test
+    public void argmaxWithScorerMatchesLegacyAlgorithm() {
+
+        final List<Corpus> candidates = new ArrayList<>();
+        candidates.add(candidateA);
+        candidates.add(candidateB);
+
+        final PreparedQuery prepared = nllr.prepare(query);
+        final Object[] constants = {prepared};
+
+        final Argmax.Result<Corpus> typed = new Argmax<Corpus>().single(nllr, candidates, prepared);
+        final Argmax.Result<Corpus> legacy = new Argmax<Corpus>().single(nllr, candidates, constants);
+
+        assertSame(legacy.getArgument(), typed.getArgument());
+        assertTrue(equal(legacy.getValue(), typed.getValue()));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void calculateTooFewArgs() {
 
@@ -0,0 +1,128 @@
+package loez.nllr.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import loez.nllr.algorithm.Argmax.Result;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParallelArgmaxTest {
+
+    private static final Scorer<Integer, Integer> MODULO = new Scorer<Integer, Integer>() {
+        @Override
+        public double score(final Integer argument, final Integer context) {
+            return argument % context;
+        }
+    };
+
+    private List<Integer> args;
+    private List<ForkJoinPool> pools;
+
+    @Before
+    public void setUp() {
+
+        pools = new ArrayList<>();
+
+        final Random random = new Random(3);
+        args = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            args.add(random.nextInt(100000));
+        }
+    }
+
+    @After
+    public void tearDown() {
+
+        for (ForkJoinPool pool : pools) {
+            pool.shutdown();
+        }
+    }
+
+    private ForkJoinPool pool(final int parallelism) {
+
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        pools.add(pool);
+
+        return pool;
+    }
+
+    @Test
+    public void singleMatchesSequential() {
+
+        final Result<Integer> expected = new Argmax<Integer>().single(MODULO, args, 97);
+
+        for (int parallelism = 1; parallelism <= 4; parallelism++) {
+            final Result<Integer> got = new ParallelArgmax<Integer>(pool(parallelism), 16).single(MODULO, args, 97);
+
+            assertSame(expected.getArgument(), got.getArgument());
+            assertEquals(expected.getValue(), got.getValue(), 0.0);
+        }
+    }
+
+    @Test
+    public void multipleMatchesSequential() {
+
+        final int[] expected = new Argmax<Integer>().multipleIndices(MODULO, 50, args, 97);
+
+        for (int parallelism = 1; parallelism <= 4; parallelism++) {
+            for (int threshold = 1; threshold <= 1000; threshold *= 10) {
+                final ParallelArgmax<Integer> argmax = new ParallelArgmax<>(pool(parallelism), threshold);
+
+                assertArrayEquals(expected, argmax.multipleIndices(MODULO, 50, args, 97));
+            }
+        }
+    }
+
+    @Test
+    public void tiesResolveToEarliestArgument() {
+
+        final List<Integer> same = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            same.add(i * 10);
+        }
+
+        final ParallelArgmax<Integer> argmax = new ParallelArgmax<>(pool(4), 1);
+
+        assertSame(same.get(0), argmax.single(MODULO, same, 10).getArgument());
+        assertArrayEquals(new int[]{0, 1, 2}, argmax.multipleIndices(MODULO, 3, same, 10));
+    }
+
+    @Test
+    public void multipleReturnsResultsBestFirst() {
+
+        final List<Result<Integer>> results = new ParallelArgmax<Integer>(pool(2)).multiple(MODULO, 3, args, 7);
+
+        assertEquals(3, results.size());
+        for (Result<Integer> result : results) {
+            assertEquals(6.0, result.getValue(), 0.0);
+        }
+    }
+
+    @Test
+    public void amountLargerThanArgs() {
+
+        final List<Integer> few = args.subList(0, 3);
+
+        assertEquals(3, new ParallelArgmax<Integer>(pool(2)).multiple(MODULO, 10, few, 97).size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void singleOfEmptyArgsFails() {
+
+        new ParallelArgmax<Integer>(pool(2)).single(MODULO, new ArrayList<Integer>(), 97);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void thresholdMustBePositive() {
+
+        new ParallelArgmax<Integer>(pool(1), 0);
+    }
+}
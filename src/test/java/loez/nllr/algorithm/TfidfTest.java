@@ -99,6 +99,21 @@ public class TfidfTest {
         return Math.abs(a - b) < epsilon;
     }
 
+    @Test
+    public void scoreMatchesTfidf() {
+
+        final Tfidf tfidf = new Tfidf(reference);
+        final int tokenId = reference.getVocabulary().getId("juttu");
+
+        assertTrue(equal(Tfidf.tfidf(tokenId, docA, reference), tfidf.score(tokenId, docA)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void scoreWithoutReferenceFails() {
+
+        new Tfidf().score(0, docA);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void calculateTooFewArgs() {
 
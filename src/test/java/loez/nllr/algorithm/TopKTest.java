@@ -0,0 +1,117 @@
+package loez.nllr.algorithm;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TopKTest {
+
+    @Test
+    public void selectsHighestValuesBestFirst() {
+
+        final TopK topK = new TopK(3);
+        final double[] values = {0.5, 3.0, -1.0, 2.0, 10.0, 1.0};
+
+        for (int i = 0; i < values.length; i++) {
+            topK.offer(i, values[i]);
+        }
+
+        final int[] indices = new int[3];
+        final double[] selected = new double[3];
+
+        assertEquals(3, topK.drain(indices, selected));
+        assertArrayEquals(new int[]{4, 1, 3}, indices);
+        assertArrayEquals(new double[]{10.0, 3.0, 2.0}, selected, 0.0);
+        assertEquals("drain() should clear the selector",
+                0, topK.size());
+    }
+
+    @Test
+    public void lowerIndexWinsTies() {
+
+        final TopK topK = new TopK(2);
+
+        topK.offer(0, 1.0);
+        topK.offer(1, 2.0);
+        topK.offer(2, 2.0);
+        topK.offer(3, 2.0);
+
+        assertArrayEquals(new int[]{1, 2}, topK.drainIndices());
+    }
+
+    @Test
+    public void offerReportsAcceptance() {
+
+        final TopK topK = new TopK(1);
+
+        assertTrue(topK.offer(0, 1.0));
+        assertFalse(topK.offer(1, 0.5));
+        assertFalse(topK.offer(2, 1.0));
+        assertTrue(topK.offer(3, 1.5));
+        assertArrayEquals(new int[]{3}, topK.drainIndices());
+    }
+
+    @Test
+    public void zeroCapacitySelectsNothing() {
+
+        final TopK topK = new TopK(0);
+
+        assertFalse(topK.offer(0, 1.0));
+        assertEquals(0, topK.drainIndices().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCapacityIsRejected() {
+
+        new TopK(-1);
+    }
+
+    @Test
+    public void clearAllowsReuse() {
+
+        final TopK topK = new TopK(2);
+        topK.offer(0, 5.0);
+        topK.offer(1, 6.0);
+        topK.clear();
+        topK.offer(2, 1.0);
+
+        assertArrayEquals(new int[]{2}, topK.drainIndices());
+    }
+
+    @Test
+    public void matchesFullSortOnRandomInput() {
+
+        final Random random = new Random(7);
+        final TopK topK = new TopK(10);
+
+        for (int round = 0; round < 20; round++) {
+
+            final Integer[] order = new Integer[200];
+            final double[] values = new double[order.length];
+
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+                values[i] = random.nextInt(50);
+                topK.offer(i, values[i]);
+            }
+
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(final Integer a, final Integer b) {
+                    final int byValue = Double.compare(values[b], values[a]);
+                    return byValue != 0 ? byValue : Integer.compare(a, b);
+                }
+            });
+
+            final int[] indices = topK.drainIndices();
+
+            for (int i = 0; i < indices.length; i++) {
+                assertEquals(order[i].intValue(), indices[i]);
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.Set;
+import java.util.SortedMap;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -187,6 +188,52 @@ public class CorpusTest {
                 corpus.getTotalTokens(), tokensBefore + 2);
     }
 
+    @Test
+    public void testStatsAreKeptUpToDateWithoutRefresh() {
+
+        corpus.add(new Document(null, "auto asia uusi"));
+
+        assertEquals("Adding a document should update total tokens without refreshStats()",
+                11, corpus.getTotalTokens());
+        assertEquals("Adding a document should update token frequencies without refreshStats()",
+                5, corpus.getFrequency("asia"));
+        assertEquals("Adding a document should update document frequencies without refreshStats()",
+                2, corpus.numOfDocsContainingToken("auto"));
+
+        corpus.remove(0);
+
+        assertEquals("Removing a document should update total tokens without refreshStats()",
+                6, corpus.getTotalTokens());
+        assertEquals("Removing a document should update token frequencies without refreshStats()",
+                1, corpus.getFrequency("asia"));
+        assertEquals("Removing a document should update document frequencies without refreshStats()",
+                1, corpus.numOfDocsContainingToken("auto"));
+    }
+
+    @Test
+    public void testRemovingBoundaryDocumentUpdatesDates() {
+
+        final Calendar first = new GregorianCalendar();
+        first.set(2001, 1, 1);
+        clearDate(first);
+
+        final Calendar second = new GregorianCalendar();
+        second.set(2002, 1, 1);
+        clearDate(second);
+
+        final Corpus c = new Corpus();
+        c.add(new Document((Calendar) first.clone(), "kivi"));
+        c.add(new Document((Calendar) second.clone(), "kivi"));
+
+        assertTrue("Adding documents should update the start date",
+                isSameDate(c.getStartDate(), first));
+
+        c.remove(0);
+
+        assertTrue("Removing the earliest document should update the start date",
+                isSameDate(c.getStartDate(), second) && isSameDate(c.getEndDate(), second));
+    }
+
     @Test
     public void testGetDocuments() {
 
@@ -250,6 +297,127 @@ public class CorpusTest {
                 2, c.getTimePartition(second, third).getDocuments().size());
     }
 
+    @Test
+    public void testGetTimePartitionReflectsChanges() {
+
+        final String body = "auto";
+        final Corpus c = new Corpus();
+        final Document late = new Document(new GregorianCalendar(2003, 5, 1), body);
+        final Document early = new Document(new GregorianCalendar(2003, 0, 1), body);
+
+        c.add(late);
+        c.add(early);
+
+        final Calendar start = new GregorianCalendar(2002, 0, 1);
+        final Calendar end = new GregorianCalendar(2004, 0, 1);
+
+        assertEquals("Time partitions should list documents in chronological order",
+                early, c.getTimePartition(start, end).get(0));
+
+        final Document middle = new Document(new GregorianCalendar(2003, 2, 1), body);
+        c.add(middle);
+
+        assertEquals("Time partitions should include documents added after a previous query",
+                middle, c.getTimePartition(start, end).get(1));
+
+        c.remove(0);
+
+        assertEquals("Time partitions should exclude documents removed after a previous query",
+                2, c.getTimePartition(start, end).getDocuments().size());
+    }
+
+    @Test
+    public void testPartition() {
+
+        final String body = "auto auto asia";
+        final Corpus c = new Corpus();
+
+        for (int day = 1; day <= 40; day += 3) {
+            c.add(new Document(new GregorianCalendar(2003, 0, day), body));
+        }
+
+        c.add(new Document(null, body));
+
+        final SortedMap<Integer, Corpus> partitions = c.partition(new TimeSpan((Calendar) c.getStartDate().clone(), TimeSpan.Length.WEEKLY));
+        final TimeSpan timeSpan = new TimeSpan((Calendar) c.getStartDate().clone(), TimeSpan.Length.WEEKLY);
+
+        int index = 0;
+        int documents = 0;
+
+        while (!timeSpan.getStart().after(c.getEndDate())) {
+
+            final Corpus expected = c.getTimePartition(timeSpan.getStart(), timeSpan.getEnd());
+
+            if (expected.getDocuments().isEmpty()) {
+                assertFalse("Empty time spans should not have a partition",
+                        partitions.containsKey(index));
+            } else {
+                assertEquals("A partition should contain the same documents as the equivalent time partition",
+                        expected.getDocuments(), partitions.get(index).getDocuments());
+                assertEquals("A partition should have the same stats as the equivalent time partition",
+                        expected.getTotalTokens(), partitions.get(index).getTotalTokens());
+            }
+
+            documents += expected.getDocuments().size();
+            index++;
+            timeSpan.advance();
+        }
+
+        assertEquals("Partitions should contain all dated documents",
+                14, documents);
+    }
+
+    @Test
+    public void testDifferenceMatchesRecountedCorpus() {
+
+        final Corpus whole = new Corpus();
+        final Corpus part = new Corpus();
+        final Corpus rest = new Corpus();
+        final String[] bodies = {"auto kivi kivi", "kivi puu", "puu puu auto talo", "talo"};
+
+        for (int i = 0; i < bodies.length; i++) {
+            final Document document = new Document(new GregorianCalendar(2003, 0, 1 + i), bodies[i]);
+            whole.add(document);
+
+            if (i % 2 == 0) {
+                part.add(document);
+            } else {
+                rest.add(document);
+            }
+        }
+
+        final Corpus difference = whole.difference(part);
+
+        assertEquals("The difference should contain the remaining documents in order",
+                rest.getDocuments(), difference.getDocuments());
+        assertEquals(rest.getTotalTokens(), difference.getTotalTokens());
+        assertEquals(rest.getUniqueTokens(), difference.getUniqueTokens());
+        assertEquals(rest.getStartDay(), difference.getStartDay());
+        assertEquals(rest.getEndDay(), difference.getEndDay());
+
+        for (String token : whole.getUniqueTokens()) {
+            assertEquals(rest.getFrequency(token), difference.getFrequency(token));
+            assertEquals(rest.numOfDocsContainingToken(token), difference.numOfDocsContainingToken(token));
+        }
+
+        assertEquals("Taking a difference should not change the original corpus",
+                4, whole.getDocuments().size());
+    }
+
+    @Test
+    public void testDifferenceIsIndependentOfOriginal() {
+
+        final Corpus difference = corpus.difference(new Corpus());
+        difference.remove(0);
+
+        assertEquals(3, difference.getTotalTokens());
+        assertEquals("Modifying a difference should not change the original corpus",
+                8, corpus.getTotalTokens());
+        assertEquals(2, corpus.getDocuments().size());
+        assertTrue(corpus.containsToken(docA.getUniqueTokenIds()[0]));
+        assertFalse(difference.containsToken(docA.getUniqueTokenIds()[0]));
+    }
+
     private boolean isSameDate(final Calendar a, final Calendar b) {
 
         return a.get(Calendar.YEAR) == b.get(Calendar.YEAR) &&
@@ -1,9 +1,13 @@
 package loez.nllr.domain;
 
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.HashSet;
 import java.util.Set;
 
+import loez.nllr.preprocessor.SimplePreprocessor;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -61,4 +65,69 @@ public class DocumentTest {
         assertEquals("getFrequency should return 0 when the document has 0 of the queried token",
                 doc.getFrequency("tokenThatDoesNotExist"), 0);
     }
+
+    @Test
+    public void repeatedWhitespaceDoesNotCreateEmptyTokens() {
+
+        final Document d = new Document(" kissa  koira\tkissa ");
+
+        assertEquals("Only non-empty tokens should be counted",
+                3, d.getTotalTokens());
+        assertEquals(2, d.getUniqueTokenIds().length);
+        assertFalse(d.containsToken(""));
+    }
+
+    @Test
+    public void emptyBodyHasNoTokens() {
+
+        assertEquals(0, new Document("").getTotalTokens());
+    }
+
+    @Test
+    public void tokenListConstructorMatchesBodyConstructor() {
+
+        final Document expected = new Document("kissa koira kissa");
+        final Document d = new Document(EpochDay.NONE, Arrays.asList("kissa", "", "koira", "kissa"), Vocabulary.getDefault());
+
+        assertEquals(expected.getTotalTokens(), d.getTotalTokens());
+        assertEquals(expected.getUniqueTokens(), d.getUniqueTokens());
+    }
+
+    @Test
+    public void preprocessorConstructorCountsProcessedTokens() {
+
+        final Vocabulary vocabulary = new Vocabulary();
+        final Document d = new Document(EpochDay.NONE, "Kissa, koira - kissa 1,000", new SimplePreprocessor(), vocabulary);
+
+        assertEquals(4, d.getTotalTokens());
+        assertEquals(2, d.getFrequency("KISSA"));
+        assertEquals(1, d.getFrequency("NUMERAL"));
+        assertSame(vocabulary, d.getVocabulary());
+    }
+
+    @Test
+    public void queryDocumentDoesNotAddTokensToVocabulary() {
+
+        final Vocabulary vocabulary = new Vocabulary();
+        final int known = vocabulary.getOrAdd("hiiri");
+        final Document d = Document.query(EpochDay.NONE, Arrays.asList("hiiri", "kala", "kala", "lintu"), vocabulary);
+
+        assertEquals(1, vocabulary.size());
+        assertTrue(d.isQuery());
+        assertEquals(4, d.getTotalTokens());
+        assertEquals(1, d.getFrequency(known));
+        assertEquals(2, d.getFrequency("kala"));
+        assertTrue(d.containsToken("lintu"));
+        assertEquals(new HashSet<>(Arrays.asList("hiiri", "kala", "lintu")), d.getUniqueTokens());
+
+        for (int id : d.getUniqueTokenIds()) {
+            assertTrue(id == known || id >= Vocabulary.MAX_SIZE);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void queryDocumentCannotBeAddedToCorpus() {
+
+        new Corpus(new Vocabulary()).add(Document.query(EpochDay.NONE, Arrays.asList("hiiri"), Vocabulary.getDefault()));
+    }
 }
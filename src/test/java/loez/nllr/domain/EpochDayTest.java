@@ -0,0 +1,74 @@
+package loez.nllr.domain;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author ljleppan@cs
+ */
+public class EpochDayTest {
+
+    @Test
+    public void epochStartsAtZero() {
+
+        assertEquals(0, EpochDay.of(1970, 1, 1));
+        assertEquals(-1, EpochDay.of(1969, 12, 31));
+    }
+
+    @Test
+    public void ofMatchesCalendar() {
+
+        final Calendar calendar = new GregorianCalendar(1999, Calendar.DECEMBER, 25);
+        final int epochDay = EpochDay.of(calendar);
+
+        assertEquals(EpochDay.of(1999, 12, 25), epochDay);
+        assertEquals(calendar, EpochDay.toCalendar(epochDay));
+    }
+
+    @Test
+    public void nullCalendarIsNone() {
+
+        assertEquals(EpochDay.NONE, EpochDay.of(null));
+        assertNull(EpochDay.toCalendar(EpochDay.NONE));
+    }
+
+    @Test
+    public void roundTripsOverLeapYears() {
+
+        final Calendar calendar = new GregorianCalendar(1896, Calendar.JANUARY, 1);
+        int epochDay = EpochDay.of(calendar);
+
+        while (calendar.get(Calendar.YEAR) < 2104) {
+            assertEquals(calendar.get(Calendar.YEAR), EpochDay.year(epochDay));
+            assertEquals(calendar.get(Calendar.MONTH) + 1, EpochDay.month(epochDay));
+            assertEquals(calendar.get(Calendar.DAY_OF_MONTH), EpochDay.dayOfMonth(epochDay));
+
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            epochDay++;
+        }
+    }
+
+    @Test
+    public void dayOfWeekStartsOnMonday() {
+
+        assertEquals(4, EpochDay.dayOfWeek(EpochDay.of(1970, 1, 1)));
+        assertEquals(1, EpochDay.dayOfWeek(EpochDay.of(2003, 1, 6)));
+        assertEquals(7, EpochDay.dayOfWeek(EpochDay.of(2003, 1, 5)));
+        assertEquals(3, EpochDay.dayOfWeek(EpochDay.of(1969, 12, 31)));
+    }
+
+    @Test
+    public void lengthOfMonthHandlesLeapYears() {
+
+        assertEquals(29, EpochDay.lengthOfMonth(2000, 2));
+        assertEquals(28, EpochDay.lengthOfMonth(1900, 2));
+        assertEquals(29, EpochDay.lengthOfMonth(2004, 2));
+        assertEquals(31, EpochDay.lengthOfMonth(2003, 12));
+        assertEquals(30, EpochDay.lengthOfMonth(2003, 4));
+    }
+}
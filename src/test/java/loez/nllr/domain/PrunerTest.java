@@ -0,0 +1,118 @@
+package loez.nllr.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PrunerTest {
+
+    private static final String THE = "THE";
+    private static final String CAT = "CAT";
+    private static final String DOG = "DOG";
+    private static final String MOUSE = "MOUSE";
+    private static final Set<String> NO_STOPWORDS = Collections.emptySet();
+
+    private Vocabulary vocabulary;
+    private Corpus corpus;
+    private Document first;
+
+    @Before
+    public void setUp() {
+
+        vocabulary = new Vocabulary();
+
+        final List<Document> documents = new ArrayList<>();
+        first = document(THE, CAT, THE, DOG);
+        documents.add(first);
+        documents.add(document(THE, CAT, "SAT"));
+        documents.add(document(THE, DOG, MOUSE, MOUSE, MOUSE));
+
+        corpus = new Corpus(documents, vocabulary);
+    }
+
+    private Document document(final String... tokens) {
+
+        return new Document(EpochDay.of(1987, 4, 8), Arrays.asList(tokens), vocabulary);
+    }
+
+    @Test
+    public void prunesStopwords() {
+
+        new Pruner(new HashSet<>(Arrays.asList(THE)), 0, Pruner.UNLIMITED).prune(corpus);
+
+        assertFalse(corpus.containsToken(THE));
+        assertTrue(corpus.containsToken(CAT));
+        assertEquals(0, first.getFrequency(THE));
+        assertEquals(2, first.getTotalTokens());
+        assertEquals(8, corpus.getTotalTokens());
+    }
+
+    @Test
+    public void prunesRareTokens() {
+
+        new Pruner(NO_STOPWORDS, 2, Pruner.UNLIMITED).prune(corpus);
+
+        assertEquals(new HashSet<>(Arrays.asList(THE, CAT, DOG)), corpus.getUniqueTokens());
+        assertEquals(2, corpus.get(2).getTotalTokens());
+    }
+
+    @Test
+    public void keepsMostCommonTokens() {
+
+        new Pruner(NO_STOPWORDS, 0, 2).prune(corpus);
+
+        // CAT and DOG are both in two documents, but DOG was added to the vocabulary later
+        assertEquals(new HashSet<>(Arrays.asList(THE, CAT)), corpus.getUniqueTokens());
+    }
+
+    @Test
+    public void rareTokensAreRankedByFrequency() {
+
+        new Pruner(NO_STOPWORDS, 0, 4).prune(corpus);
+
+        assertTrue(corpus.containsToken(MOUSE));
+        assertFalse(corpus.containsToken("SAT"));
+    }
+
+    @Test
+    public void reportsPruning() {
+
+        final List<String> rare = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rare.add("RARE" + i);
+        }
+        corpus.add(new Document(EpochDay.of(1987, 4, 9), rare, vocabulary));
+
+        final Pruner.Report report = new Pruner(new HashSet<>(Arrays.asList(THE)), 2, Pruner.UNLIMITED).prune(corpus);
+
+        assertEquals(2, report.getKeptTokens());
+        assertEquals(23, report.getPrunedTokens());
+        assertEquals(28, report.getPrunedOccurrences());
+        assertEquals(report.getBytesBefore() - report.getBytesAfter(), report.getBytesSaved());
+        assertTrue(report.getBytesSaved() > 0);
+    }
+
+    @Test
+    public void unlimitedPrunerKeepsEverything() {
+
+        final Pruner.Report report = new Pruner(NO_STOPWORDS, 0, Pruner.UNLIMITED).prune(corpus);
+
+        assertEquals(0, report.getPrunedTokens());
+        assertEquals(12, corpus.getTotalTokens());
+        assertEquals(3, corpus.numOfDocsContainingToken(THE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveVocabularySizeThrows() {
+
+        new Pruner(NO_STOPWORDS, 0, 0);
+    }
+}
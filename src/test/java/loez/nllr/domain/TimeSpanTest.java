@@ -136,6 +136,52 @@ public class TimeSpanTest {
                 format(newCalendar(31, 12, 2015)), format(ts.getEnd()));
     }
 
+    @Test
+    public void testIndexOf() {
+
+        final TimeSpan biweekly = new TimeSpan(newCalendar(1, 1, 2014), TimeSpan.Length.BIWEEKLY);
+
+        assertEquals("A date within the time span should have index 0",
+                0, biweekly.indexOf(newCalendar(12, 1, 2014)));
+        assertEquals("A date within the next time span should have index 1",
+                1, biweekly.indexOf(newCalendar(13, 1, 2014)));
+        assertEquals("A date before the time span should have a negative index",
+                -1, biweekly.indexOf(newCalendar(29, 12, 2013)));
+
+        final TimeSpan monthly = new TimeSpan(newCalendar(19, 2, 2014), TimeSpan.Length.MONTHLY);
+
+        assertEquals("Monthly indices should count calendar months",
+                11, monthly.indexOf(newCalendar(31, 1, 2015)));
+
+        final TimeSpan daily = new TimeSpan(newCalendar(1, 3, 2014), TimeSpan.Length.DAILY);
+
+        assertEquals("Daily indices should count days over daylight saving time changes",
+                30, daily.indexOf(newCalendar(31, 3, 2014)));
+    }
+
+    @Test
+    public void testIndexOfMatchesAdvance() {
+
+        for (TimeSpan.Length length : TimeSpan.Length.values()) {
+
+            final TimeSpan fixed = new TimeSpan(newCalendar(19, 2, 2013), length);
+            final TimeSpan advancing = new TimeSpan(newCalendar(19, 2, 2013), length);
+
+            for (int i = 0; i < 30; i++) {
+                assertEquals("getStart(index) should match the start date after advancing index times",
+                        format(advancing.getStart()), format(fixed.getStart(i)));
+                assertEquals("getEnd(index) should match the end date after advancing index times",
+                        format(advancing.getEnd()), format(fixed.getEnd(i)));
+                assertEquals("The start date of a time span should have its index",
+                        i, fixed.indexOf(advancing.getStart()));
+                assertEquals("The end date of a time span should have its index",
+                        i, fixed.indexOf(advancing.getEnd()));
+
+                advancing.advance();
+            }
+        }
+    }
+
     private String format(final Calendar calendar) {
 
         return df.format(calendar.getTime());
@@ -0,0 +1,73 @@
+package loez.nllr.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VocabularyTest {
+
+    private Vocabulary vocabulary;
+
+    @Before
+    public void setUp() {
+
+        vocabulary = new Vocabulary();
+    }
+
+    @Test
+    public void idsAreDenseAndStable() {
+
+        assertEquals("The first token should get id 0",
+                0, vocabulary.getOrAdd("auto"));
+        assertEquals("The second token should get id 1",
+                1, vocabulary.getOrAdd("asia"));
+        assertEquals("A known token should keep its id",
+                0, vocabulary.getOrAdd("auto"));
+        assertEquals("Size should be the number of unique tokens",
+                2, vocabulary.size());
+    }
+
+    @Test
+    public void getIdDoesNotAddTokens() {
+
+        assertEquals("Unknown tokens should map to UNKNOWN",
+                Vocabulary.UNKNOWN, vocabulary.getId("auto"));
+        assertEquals("Null tokens should map to UNKNOWN",
+                Vocabulary.UNKNOWN, vocabulary.getId(null));
+        assertEquals("getId() should not add tokens to the vocabulary",
+                0, vocabulary.size());
+    }
+
+    @Test
+    public void getTokenReturnsToken() {
+
+        final int id = vocabulary.getOrAdd("juttu");
+
+        assertEquals("getToken() should return the token with the given id",
+                "juttu", vocabulary.getToken(id));
+    }
+
+    @Test
+    public void documentsAndCorpusesShareIds() {
+
+        final Document doc = new Document(null, "auto asia auto", vocabulary);
+        final int auto = vocabulary.getId("auto");
+
+        assertEquals("Documents should count tokens by id",
+                2, doc.getFrequency(auto));
+        assertTrue("Documents should contain tokens by id",
+                doc.containsToken(auto));
+        assertEquals("Documents should return ids of all unique tokens",
+                2, doc.getUniqueTokenIds().length);
+
+        final Corpus corpus = new Corpus(null, vocabulary);
+        corpus.add(doc);
+        corpus.refreshStats();
+
+        assertEquals("Corpuses should count tokens by id",
+                2, corpus.getFrequency(auto));
+        assertEquals("Corpuses should count documents containing a token by id",
+                1, corpus.numOfDocsContainingToken(auto));
+    }
+}
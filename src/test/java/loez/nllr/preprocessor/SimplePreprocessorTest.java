@@ -1,5 +1,14 @@
 package loez.nllr.preprocessor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import loez.nllr.preprocessor.util.Numeral;
+import loez.nllr.preprocessor.util.Punctuation;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -32,4 +41,83 @@ public class SimplePreprocessorTest {
                 "ALSO A STRING THIS TIME WITH NUMERAL",
                 pp.process("a.l.so A- string this time with 1233321312"));
     }
+
+    @Test
+    public void matchesRegularExpressionProcessing() {
+
+        final Random random = new Random(1);
+        final String alphabet = "aZi 09 ,.;-'!/:@[`{~\\\t\u00e4\u00df\u00a0";
+
+        for (int i = 0; i < 2000; i++) {
+            final StringBuilder input = new StringBuilder();
+            final int length = random.nextInt(20);
+
+            for (int j = 0; j < length; j++) {
+                input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            assertEquals("Input \"" + input + "\" should be processed as with regular expressions",
+                    processWithRegularExpressions(input.toString()),
+                    pp.process(input.toString()));
+            assertEquals("Input \"" + input + "\" should be tokenized as the processed string",
+                    splitAtWhitespace(pp.process(input.toString())),
+                    tokens(input.toString()));
+        }
+    }
+
+    @Test
+    public void uppercasesInTurkishLocale() {
+
+        final Locale defaultLocale = Locale.getDefault();
+
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+
+            assertEquals("a string should be uppercased in the default locale",
+                    processWithRegularExpressions("istanbul, 1 2.3"),
+                    pp.process("istanbul, 1 2.3"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void sinkReceivesNonEmptyTokens() {
+
+        assertEquals(Arrays.asList("THIS", "IS", "A", "NUMERAL"),
+                tokens(" tHiS  is - a 1,233 . "));
+        assertEquals(new ArrayList<String>(), tokens(" ... "));
+    }
+
+    private List<String> tokens(final String input) {
+
+        final List<String> tokens = new ArrayList<>();
+        pp.process(input, new TokenSink() {
+            @Override
+            public void accept(final String token) {
+                tokens.add(token);
+            }
+        });
+
+        return tokens;
+    }
+
+    private static List<String> splitAtWhitespace(final String processed) {
+
+        final List<String> tokens = new ArrayList<>();
+        for (String token : processed.split("[\\x00-\\x20]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+
+        return tokens;
+    }
+
+    private static String processWithRegularExpressions(final String input) {
+
+        final String output = new Numeral().replace(new Punctuation().remove(input), "NUMERAL");
+
+        return output.trim().toUpperCase();
+    }
 }
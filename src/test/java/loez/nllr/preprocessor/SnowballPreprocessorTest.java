@@ -1,14 +1,27 @@
 package loez.nllr.preprocessor;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import loez.nllr.preprocessor.exception.StemmerCreationException;
+import loez.nllr.preprocessor.util.StemCache;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class SnowballPreprocessorTest {
 
+    private static final String FINNISH = "Finnish";
+
     PreProcessor pp;
 
     @Before
@@ -73,10 +86,156 @@ public class SnowballPreprocessorTest {
     @Test
     public void processesFinnishSentencesCorrectly() throws StemmerCreationException {
 
-        pp.setLanguage("Finnish");
+        pp.setLanguage(FINNISH);
 
         assertEquals("SnowballPreprocessor should process sentences correctly",
                 "AUTO ON KIVO",
                 pp.process("autot on kivoja"));
     }
+
+    @Test
+    public void sinkReceivesStemmedTokens() {
+
+        final List<String> tokens = new ArrayList<>();
+        pp.process("cars  are - funny, 123", new TokenSink() {
+            @Override
+            public void accept(final String token) {
+                tokens.add(token);
+            }
+        });
+
+        assertEquals(Arrays.asList(pp.process("cars  are - funny, 123").split(" +")), tokens);
+    }
+
+    @Test
+    public void stringAndSinkTokenizeWhitespaceAlike() {
+
+        final String input = "cars\tare\nfunny \t running";
+        final List<String> tokens = new ArrayList<>();
+        pp.process(input, new TokenSink() {
+            @Override
+            public void accept(final String token) {
+                tokens.add(token);
+            }
+        });
+
+        assertEquals(Arrays.asList("CAR", "ARE", "FUNNI", "RUN"), tokens);
+        assertEquals("CAR ARE FUNNI RUN", pp.process(input));
+    }
+
+    @Test
+    public void repeatedWordsAreStemmedOnce() throws StemmerCreationException {
+
+        final SnowballPreprocessor snowball = new SnowballPreprocessor();
+
+        assertEquals("CAR CAR CAR", snowball.process("cars cars cars"));
+        assertEquals(1, snowball.getCacheMisses());
+        assertEquals(2, snowball.getCacheHits());
+    }
+
+    @Test
+    public void changingLanguageClearsStemCache() throws StemmerCreationException {
+
+        final SnowballPreprocessor snowball = new SnowballPreprocessor();
+
+        snowball.process("autot");
+        snowball.setLanguage(FINNISH);
+
+        assertEquals("AUTO", snowball.process("autot"));
+        assertEquals("Counts should start over with the new language",
+                1, snowball.getCacheMisses());
+    }
+
+    @Test
+    public void processesConcurrently() throws Exception {
+
+        final SnowballPreprocessor snowball = new SnowballPreprocessor(pp.getLanguage(), 4);
+        final String input = "sentences with cars are funny and happily running hoppers jumped over lazy dogs";
+        final String expected = new SnowballPreprocessor().process(input);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < 500; i++) {
+                            if (!expected.equals(snowball.process(input))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertTrue("Concurrent processing should give the same result as sequential",
+                        result.get());
+            }
+
+            assertEquals("Counts should be summed over the caches of all threads",
+                    4 * 500 * input.split(" ").length, snowball.getCacheHits() + snowball.getCacheMisses());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void cachesOfFinishedThreadsAreNotKept() throws Exception {
+
+        final List<WeakReference<StemCache>> caches = new ArrayList<>();
+        final SnowballPreprocessor snowball = new SnowballPreprocessor() {
+            @Override
+            StemCache newStemCache() {
+                final StemCache cache = super.newStemCache();
+                synchronized (caches) {
+                    caches.add(new WeakReference<>(cache));
+                }
+                return cache;
+            }
+        };
+
+        for (int i = 0; i < 50; i++) {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    snowball.process("cars cars");
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+
+        assertEquals("Every thread should have built its own cache", 50, caches.size());
+        assertEquals("Counts of finished threads should be kept", 50, snowball.getCacheHits());
+        assertEquals(50, snowball.getCacheMisses());
+
+        for (int attempt = 0; attempt < 50 && liveCaches(caches) > 0; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals("Caches of finished threads should not be kept", 0, liveCaches(caches));
+    }
+
+    private static int liveCaches(final List<WeakReference<StemCache>> caches) {
+
+        int live = 0;
+        for (WeakReference<StemCache> cache : caches) {
+            if (cache.get() != null) {
+                live++;
+            }
+        }
+
+        return live;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveCacheSizeThrows() throws StemmerCreationException {
+
+        new SnowballPreprocessor(pp.getLanguage(), 0);
+    }
 }
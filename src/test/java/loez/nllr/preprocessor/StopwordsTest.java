@@ -0,0 +1,51 @@
+package loez.nllr.preprocessor;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Set;
+
+import loez.nllr.preprocessor.exception.StemmerCreationException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StopwordsTest {
+
+    @Test
+    public void loadsProcessedStopwords() throws IOException {
+
+        final Set<String> stopwords = Stopwords.load("English", new SimplePreprocessor());
+
+        assertTrue(stopwords.contains("THE"));
+        assertTrue(stopwords.contains("AND"));
+        assertFalse(stopwords.contains("the"));
+        assertFalse(stopwords.contains("CAT"));
+    }
+
+    @Test
+    public void skipsComments() throws IOException {
+
+        for (String stopword : Stopwords.load("english", new SimplePreprocessor())) {
+            assertFalse(stopword.startsWith("#"));
+            assertFalse(stopword.isEmpty());
+        }
+    }
+
+    @Test
+    public void stopwordsAreStemmed() throws IOException, StemmerCreationException {
+
+        final SnowballPreprocessor pp = new SnowballPreprocessor("Finnish");
+        final Set<String> stopwords = Stopwords.load(pp.getLanguage(), pp);
+
+        assertTrue(stopwords.contains(pp.process("meidän")));
+        assertTrue(stopwords.contains(pp.process("koska")));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void unknownLanguageThrows() throws IOException {
+
+        Stopwords.load("Klingon", new SimplePreprocessor());
+    }
+}
@@ -0,0 +1,58 @@
+package loez.nllr.preprocessor.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StemCacheTest {
+
+    private static final String WORD = "cars";
+    private static final String STEM = "car";
+
+    private final StemCache cache = new StemCache(2);
+
+    @Test
+    public void countsHitsAndMisses() {
+
+        assertNull(cache.get(WORD));
+        cache.put(WORD, STEM);
+
+        assertEquals(STEM, cache.get(WORD));
+        assertEquals(STEM, cache.get(WORD));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedWord() {
+
+        cache.put(WORD, STEM);
+        cache.put("funny", "funni");
+        cache.get(WORD);
+        cache.put("sentences", "sentenc");
+
+        assertEquals(2, cache.size());
+        assertEquals(STEM, cache.get(WORD));
+        assertNull("The least recently used word should have been evicted",
+                cache.get("funny"));
+        assertEquals("sentenc", cache.get("sentences"));
+    }
+
+    @Test
+    public void clearKeepsCounts() {
+
+        cache.put(WORD, STEM);
+        cache.get(WORD);
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveCapacityThrows() {
+
+        new StemCache(0);
+    }
+}
@@ -1,25 +1,233 @@
 package loez.nllr.reader;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import loez.nllr.domain.Corpus;
+import loez.nllr.domain.Vocabulary;
 import loez.nllr.preprocessor.PreProcessor;
 import loez.nllr.preprocessor.SimplePreprocessor;
+import loez.nllr.preprocessor.TokenSink;
 
 import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
 
 public class CorpusReaderTest {
 
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
     private CorpusReader cr;
     private DateFormat df;
     private PreProcessor pp;
+    private File testFile;
 
     @Before
-    public void setUp() {
+    public void setUp() throws IOException {
 
         df = new SimpleDateFormat("d-MMM-yyyy", Locale.US);
         pp = new SimplePreprocessor();
         cr = new CorpusReader();
+
+        testFile = testFolder.newFile("test.csv");
+
+        final BufferedWriter out = new BufferedWriter(new FileWriter(testFile));
+        for (int i = 0; i < 500; i++) {
+            out.write("TEST; " + (i % 28 + 1) + "-FEB-1987;word" + (i % 37) + " other" + (i % 11) + " words " + i);
+            out.write(i % 3 == 0 ? "\r\n" : "\n");
+
+            if (i % 97 == 0) {
+                out.write("malformed line\n");
+            }
+        }
+        out.close();
+    }
+
+    @Test
+    public void parallelReadMatchesSequentialRead() throws FileNotFoundException {
+
+        final Vocabulary sequentialVocabulary = new Vocabulary();
+        final Vocabulary parallelVocabulary = new Vocabulary();
+
+        final Corpus sequential = cr.readCorpus(testFile.getPath(), df, pp, sequentialVocabulary);
+        final Corpus parallel = cr.readCorpus(testFile.getPath(), df, pp, parallelVocabulary, 4);
+
+        assertEquals(500, sequential.getDocuments().size());
+        assertSameCorpus(sequential, sequentialVocabulary, parallel, parallelVocabulary);
+    }
+
+    @Test
+    public void parallelReadWithMoreChunksThanThreadsMatchesSequentialRead() throws FileNotFoundException {
+
+        final Vocabulary sequentialVocabulary = new Vocabulary();
+        final Vocabulary parallelVocabulary = new Vocabulary();
+
+        final Corpus sequential = cr.readCorpus(testFile.getPath(), df, pp, sequentialVocabulary);
+        final Corpus parallel = new CorpusReader(256).readCorpus(testFile.getPath(), df, pp, parallelVocabulary, 3);
+
+        assertSameCorpus(sequential, sequentialVocabulary, parallel, parallelVocabulary);
+    }
+
+    @Test
+    public void parallelReadDoesNotRunAheadOfSlowChunk() throws Exception {
+
+        final int threads = 2;
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger processed = new AtomicInteger();
+
+        // Blocks on the first line, so that every later chunk has to wait for the first one to be consumed
+        final PreProcessor slowFirstLine = new SimplePreprocessor() {
+            @Override
+            public void process(final String input, final TokenSink sink) {
+                if (input.endsWith(" words 0")) {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                processed.incrementAndGet();
+                super.process(input, sink);
+            }
+        };
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // With one byte chunks, every line is in its own chunk
+            final Future<Corpus> result = executor.submit(new Callable<Corpus>() {
+                @Override
+                public Corpus call() throws FileNotFoundException {
+                    return new CorpusReader(1).readCorpus(testFile.getPath(), df, slowFirstLine, new Vocabulary(), threads);
+                }
+            });
+
+            Thread.sleep(300);
+
+            assertTrue(processed.get() < CorpusReader.CHUNKS_IN_FLIGHT_PER_THREAD * threads);
+
+            release.countDown();
+
+            assertEquals(500, result.get().getDocuments().size());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void mappedReadMatchesSequentialRead() throws FileNotFoundException {
+
+        final Vocabulary sequentialVocabulary = new Vocabulary();
+        final Vocabulary mappedVocabulary = new Vocabulary();
+
+        final Corpus sequential = cr.readCorpus(testFile.getPath(), df, pp, sequentialVocabulary);
+        final Corpus mapped = cr.readMappedCorpus(testFile.getPath(), df, pp, mappedVocabulary);
+
+        assertSameCorpus(sequential, sequentialVocabulary, mapped, mappedVocabulary);
+    }
+
+    @Test
+    public void mappedReadSplitsFieldsLikeSequentialRead() throws IOException {
+
+        final File fields = testFolder.newFile("fields.csv");
+
+        final BufferedWriter out = new BufferedWriter(new FileWriter(fields));
+        out.write("a;1-MAR-1987;\n");
+        out.write("a;2-MAR-1987;;;\n");
+        out.write("a;3-MAR-1987;;body;with;fields;\n");
+        out.write(";4-MAR-1987; \r");
+        out.write("a;;body\n");
+        out.write("a;5-MAR-1987\n");
+        out.write("a;not a date;body\n");
+        out.write("\n\r\n");
+        out.write("a;6-MAR-1987;last line");
+        out.close();
+
+        final Vocabulary sequentialVocabulary = new Vocabulary();
+        final Vocabulary mappedVocabulary = new Vocabulary();
+
+        final Corpus sequential = cr.readCorpus(fields.getPath(), df, pp, sequentialVocabulary);
+        final Corpus mapped = cr.readMappedCorpus(fields.getPath(), df, pp, mappedVocabulary);
+
+        assertEquals(3, sequential.getDocuments().size());
+        assertSameCorpus(sequential, sequentialVocabulary, mapped, mappedVocabulary);
+    }
+
+    @Test
+    public void mappedReadWithSmallWindowMatchesSequentialRead() throws IOException {
+
+        final Vocabulary sequentialVocabulary = new Vocabulary();
+        final Vocabulary mappedVocabulary = new Vocabulary();
+
+        final Corpus sequential = cr.readCorpus(testFile.getPath(), df, pp, sequentialVocabulary);
+        final Corpus mapped = new MappedCorpusReader(64).read(testFile.getPath(), new DateParser(df), pp, mappedVocabulary);
+
+        assertSameCorpus(sequential, sequentialVocabulary, mapped, mappedVocabulary);
+    }
+
+    @Test(expected = IOException.class)
+    public void mappedReadOfLineLongerThanWindowThrows() throws IOException {
+
+        new MappedCorpusReader(8).read(testFile.getPath(), new DateParser(df), pp, new Vocabulary());
+    }
+
+    @Test
+    public void readingWithOneThreadIsSequential() throws FileNotFoundException {
+
+        final Corpus corpus = cr.readCorpus(testFile.getPath(), df, pp, new Vocabulary(), 1);
+
+        assertEquals(500, corpus.getDocuments().size());
+    }
+
+    @Test
+    public void parallelReadOfEmptyFileGivesEmptyCorpus() throws IOException {
+
+        final File empty = testFolder.newFile("empty.csv");
+
+        final Corpus corpus = cr.readCorpus(empty.getPath(), df, pp, new Vocabulary(), 4);
+
+        assertTrue(corpus.getDocuments().isEmpty());
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void parallelReadOfMissingFileThrows() throws FileNotFoundException {
+
+        cr.readCorpus(new File(testFolder.getRoot(), "missing.csv").getPath(), df, pp, new Vocabulary(), 4);
+    }
+
+    private static void assertSameCorpus(final Corpus expected, final Vocabulary expectedVocabulary, final Corpus actual, final Vocabulary actualVocabulary) {
+
+        assertEquals(expected.getDocuments().size(), actual.getDocuments().size());
+        assertEquals(expected.getTotalTokens(), actual.getTotalTokens());
+        assertEquals(expected.getStartDay(), actual.getStartDay());
+        assertEquals(expected.getEndDay(), actual.getEndDay());
+
+        for (int i = 0; i < expected.getDocuments().size(); i++) {
+            assertEquals(expected.get(i).getEpochDay(), actual.get(i).getEpochDay());
+            assertArrayEquals(expected.get(i).getUniqueTokenIds(), actual.get(i).getUniqueTokenIds());
+        }
+
+        assertEquals(expectedVocabulary.size(), actualVocabulary.size());
+        for (int id = 0; id < expectedVocabulary.size(); id++) {
+            assertEquals(expectedVocabulary.getToken(id), actualVocabulary.getToken(id));
+        }
     }
 }
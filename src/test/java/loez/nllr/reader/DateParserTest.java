@@ -0,0 +1,130 @@
+package loez.nllr.reader;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import loez.nllr.domain.EpochDay;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DateParserTest {
+
+    private static final String DATE = "8-APR-1987";
+
+    private DateFormat df;
+
+    @Before
+    public void setUp() {
+
+        df = new SimpleDateFormat("d-MMM-yyyy", Locale.US);
+    }
+
+    @Test
+    public void parsesToEpochDay() {
+
+        final DateParser parser = new DateParser(df);
+
+        assertEquals(EpochDay.of(1987, 4, 8), parser.parse(DATE));
+        assertEquals(EpochDay.of(1987, 4, 8), parser.parse(" 8-APR-1987 00:38:26.78"));
+    }
+
+    @Test
+    public void malformedDateIsNone() {
+
+        final DateParser parser = new DateParser(df);
+
+        assertEquals(EpochDay.NONE, parser.parse("not a date"));
+        assertEquals(EpochDay.NONE, parser.parse("not a date"));
+    }
+
+    @Test
+    public void remembersDistinctStrings() {
+
+        final DateParser parser = new DateParser(df);
+
+        parser.parse(DATE);
+        parser.parse(DATE);
+        parser.parse("9-APR-1987");
+        parser.parse("garbage");
+
+        assertEquals(3, parser.getCachedCount());
+    }
+
+    @Test
+    public void cacheIsBounded() {
+
+        final DateParser parser = new DateParser(df, 2);
+
+        for (int day = 1; day <= 10; day++) {
+            assertEquals(EpochDay.of(1987, 4, day), parser.parse(day + "-APR-1987"));
+        }
+
+        assertEquals(2, parser.getCachedCount());
+    }
+
+    @Test
+    public void zeroCacheSizeRemembersNothing() {
+
+        final DateParser parser = new DateParser(df, 0);
+
+        assertEquals(EpochDay.of(1987, 4, 8), parser.parse(DATE));
+        assertEquals(0, parser.getCachedCount());
+    }
+
+    @Test
+    public void laterChangesToFormatHaveNoEffect() {
+
+        final DateParser parser = new DateParser(df);
+        ((SimpleDateFormat) df).applyPattern("yyyy");
+
+        assertEquals(EpochDay.of(1987, 4, 8), parser.parse(DATE));
+    }
+
+    @Test
+    public void parsesConcurrently() throws Exception {
+
+        final DateParser parser = new DateParser(df, 0);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < 2000; i++) {
+                            final int day = i % 28 + 1;
+                            if (parser.parse(day + "-FEB-1987") != EpochDay.of(1987, 2, day)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCacheSizeThrows() {
+
+        new DateParser(df, -1);
+    }
+}
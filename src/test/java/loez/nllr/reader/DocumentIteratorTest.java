@@ -0,0 +1,162 @@
+package loez.nllr.reader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+import loez.nllr.domain.Corpus;
+import loez.nllr.domain.Document;
+import loez.nllr.domain.Vocabulary;
+import loez.nllr.preprocessor.PreProcessor;
+import loez.nllr.preprocessor.SimplePreprocessor;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class DocumentIteratorTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private CorpusReader cr;
+    private DateFormat df;
+    private PreProcessor pp;
+    private File testFile;
+
+    @Before
+    public void setUp() throws IOException {
+
+        df = new SimpleDateFormat("d-MMM-yyyy", Locale.US);
+        pp = new SimplePreprocessor();
+        cr = new CorpusReader();
+
+        testFile = testFolder.newFile("test.csv");
+
+        final BufferedWriter out = new BufferedWriter(new FileWriter(testFile));
+        out.write("TEST;1-MAR-1987;first document\n");
+        out.write("malformed\n");
+        out.write("TEST;2-MAR-1987;second document\n");
+        out.write("TEST;not a date;third document\n");
+        out.write("TEST;3-MAR-1987;third document\n");
+        out.close();
+    }
+
+    @Test
+    public void iteratesSameDocumentsAsReadCorpus() throws IOException {
+
+        final Vocabulary vocabulary = new Vocabulary();
+
+        final Corpus corpus = cr.readCorpus(testFile.getPath(), df, pp, vocabulary);
+        final List<Document> documents = new ArrayList<>();
+
+        try (DocumentIterator iterator = cr.iterateDocuments(testFile.getPath(), df, pp, vocabulary)) {
+            while (iterator.hasNext()) {
+                documents.add(iterator.next());
+            }
+        }
+
+        assertEquals(3, documents.size());
+        assertEquals(corpus.getDocuments().size(), documents.size());
+
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals(corpus.get(i).getEpochDay(), documents.get(i).getEpochDay());
+            assertArrayEquals(corpus.get(i).getUniqueTokenIds(), documents.get(i).getUniqueTokenIds());
+        }
+    }
+
+    @Test
+    public void novelTokensAreNotAddedToVocabulary() throws IOException {
+
+        final Vocabulary vocabulary = new Vocabulary();
+        final int known = vocabulary.getOrAdd("DOCUMENT");
+        final List<Document> documents = new ArrayList<>();
+
+        try (DocumentIterator iterator = cr.iterateDocuments(testFile.getPath(), df, pp, vocabulary)) {
+            while (iterator.hasNext()) {
+                documents.add(iterator.next());
+            }
+        }
+
+        assertEquals(1, vocabulary.size());
+
+        final Document first = documents.get(0);
+        assertTrue(first.isQuery());
+        assertTrue(first.containsToken(known));
+        assertEquals(1, first.getFrequency("FIRST"));
+        assertEquals(2, first.getUniqueTokenIds().length);
+        assertTrue(first.getUniqueTokens().contains("FIRST"));
+    }
+
+    @Test
+    public void reportsMalformedLines() throws IOException {
+
+        final List<Integer> lineNumbers = new ArrayList<>();
+
+        try (DocumentIterator iterator = cr.iterateDocuments(testFile.getPath(), df, pp, new Vocabulary())) {
+            iterator.setMalformedLineListener(new DocumentIterator.MalformedLineListener() {
+                @Override
+                public void malformedLine(final int lineNumber, final String line) {
+                    lineNumbers.add(lineNumber);
+                }
+            });
+
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+
+            assertEquals(2, iterator.getMalformedLines());
+            assertEquals(5, iterator.getLineNumber());
+        }
+
+        assertEquals(2, lineNumbers.size());
+        assertEquals(2, (int) lineNumbers.get(0));
+        assertEquals(4, (int) lineNumbers.get(1));
+    }
+
+    @Test
+    public void readsLazily() throws IOException {
+
+        try (DocumentIterator iterator = cr.iterateDocuments(testFile.getPath(), df, pp, new Vocabulary())) {
+            assertTrue(iterator.hasNext());
+            assertEquals(1, iterator.getLineNumber());
+
+            iterator.next();
+            assertEquals(1, iterator.getLineNumber());
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void nextAfterEndThrows() throws IOException {
+
+        try (DocumentIterator iterator = cr.iterateDocuments(testFile.getPath(), df, pp, new Vocabulary())) {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+
+            iterator.next();
+        }
+    }
+
+    @Test
+    public void closedIteratorHasNoNext() throws IOException {
+
+        final DocumentIterator iterator = cr.iterateDocuments(testFile.getPath(), df, pp, new Vocabulary());
+        assertTrue(iterator.hasNext());
+
+        iterator.close();
+        iterator.close();
+
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -86,6 +86,8 @@ public class CommandLineInterfaceTest {
                 "YUGOSLAV WORKERS MAY BE ANGERED BY LOST SUBSIDIES  Yugoslav government plans to stop subsidising loss-making firms will anger hundreds of thousands of workers, Western diplomats said.     The law, proposed by Prime Minister Branko Mikulic, goes into effect on July 1 and aims to end a long-standing practice of supporting unprofitable companies. Under the law, wage cuts will be imposed on losing enterprises, while those failing to recover within a six-month grace period will face liquidation.     The diplomats said Mikulic's attempt to create a market economy is inevitable, but has still come as a shock to those accustomed to government subsidies.     \"It was a bitter pill which had to be swallowed, but if an overdose is taken too abruptly, it may have adverse effects on the system,\" a Western diplomat said.     He said if the law was applied too strictly it would probably provoke a new wave of strikes and unrest.     Yugoslavia was swept by strikes last month following the introduction of a wage-freeze law, later amended to allow more flexibility and some exemptions in what some political analysts saw as a retreat by Mikulic.     But with inflation moving towards 100 pct, trade union leaders have asked how much more deprivation workers can take.     The union leaders said workers thoughout the country are already receiving salaries below limits set under existing law, while others have received no wages at all this year because their employers are unable to pay them.     Workers also complain much of their income is taken in local, state and federal taxes.     Many others are losing their motivation to work and confidence in government as they feel their decision-making powers are being eroded, trade union officials said.     Meanwhile, the official Tanjug news agency reported a paper and cellulose factory at Ivangrad in the Montenegro republic closed yesterday and 2,000 of its workers were given \"temporary leave.\"     Tanjug said the plant had been running at a loss for the 24 years it had been in operation, and its closure was the result of \"economic necessity\" rather than bankruptcy.  REUTER \n" +
                 "help\n" +
                 "random\n" +
+                "corpus\n" +
+                testFile.getAbsolutePath() + "\n" +
                 "quit\n");
 
         ui.run();
@@ -115,5 +117,8 @@ public class CommandLineInterfaceTest {
         assertTrue(out.contains("Processed text:"));
         assertTrue(out.contains("Random document"));
         assertTrue(out.contains("Actual date"));
+        assertTrue(out.contains("Processing test corpus (this might take long) ..."));
+        assertTrue(out.contains("Done processing test corpus."));
+        assertTrue(out.contains("Correct: "));
     }
 }
@@ -1,10 +1,14 @@
 package loez.nllr.util;
 
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.SortedMap;
 import loez.nllr.domain.Corpus;
 import loez.nllr.domain.Document;
+import loez.nllr.domain.TimeSpan;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -133,4 +137,41 @@ public class CrossValidationHelperTest {
         assertEquals(10, testCorpus.getDocuments().size());
         assertEquals(40, trainingCorpus.getDocuments().size());
     }
+
+    @Test
+    public void splitDoesNotReorderInputCorpus() {
+
+        final Corpus corpus = createCorpusWithDocuments(50);
+        final List<Document> original = new ArrayList<>(corpus.getDocuments());
+
+        CrossValidationHelper.split(corpus, 5);
+
+        assertEquals(original, corpus.getDocuments());
+    }
+
+    @Test
+    public void buildTrainingPartitionsMatchesPartitionsOfTrainingCorpus() {
+
+        final Corpus corpus = new Corpus();
+        for (int i = 0; i < 60; i++) {
+            corpus.add(new Document(new GregorianCalendar(2003, 0, 1 + i), "sana" + (i % 7) + " sana" + (i % 3)));
+        }
+
+        final TimeSpan timeSpan = new TimeSpan(corpus.getStartDay(), TimeSpan.Length.WEEKLY);
+        final SortedMap<Integer, Corpus> wholePartitions = corpus.partition(timeSpan);
+
+        for (Corpus testCorpus : CrossValidationHelper.split(corpus, 4)) {
+
+            final SortedMap<Integer, Corpus> expected = corpus.difference(testCorpus).partition(timeSpan);
+            final SortedMap<Integer, Corpus> actual = CrossValidationHelper.buildTrainingPartitions(wholePartitions, testCorpus.partition(timeSpan));
+
+            assertEquals(expected.keySet(), actual.keySet());
+
+            for (Integer index : expected.keySet()) {
+                assertEquals(expected.get(index).getTotalTokens(), actual.get(index).getTotalTokens());
+                assertEquals(expected.get(index).getUniqueTokens(), actual.get(index).getUniqueTokens());
+                assertEquals(new HashSet<>(expected.get(index).getDocuments()), new HashSet<>(actual.get(index).getDocuments()));
+            }
+        }
+    }
 }
@@ -0,0 +1,129 @@
+package loez.nllr.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import loez.nllr.domain.Corpus;
+import loez.nllr.domain.Document;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FoldPlanTest {
+
+    private Corpus corpus;
+
+    @Before
+    public void setUp() {
+
+        corpus = new Corpus();
+
+        for (int i = 0; i < 23; i++) {
+            corpus.add(new Document(null, "sana" + (i % 5) + " toinen"));
+        }
+    }
+
+    @Test
+    public void foldsPartitionTheCorpus() {
+
+        final FoldPlan plan = new FoldPlan(corpus, 5, 1);
+        final Map<Document, Integer> seen = new IdentityHashMap<>();
+
+        assertEquals(5, plan.size());
+
+        for (int fold = 0; fold < plan.size(); fold++) {
+            final int size = plan.testDocuments(fold).size();
+
+            assertTrue("Fold sizes should differ by at most one",
+                    size == 4 || size == 5);
+
+            for (Document document : plan.testDocuments(fold)) {
+                assertNull("A document should be in only one fold",
+                        seen.put(document, fold));
+            }
+        }
+
+        assertEquals(23, seen.size());
+    }
+
+    @Test
+    public void trainingDocumentsAreTheOtherFolds() {
+
+        final FoldPlan plan = new FoldPlan(corpus, 4, 2);
+
+        for (int fold = 0; fold < plan.size(); fold++) {
+            final List<Document> test = plan.testDocuments(fold);
+            final List<Document> training = plan.trainingDocuments(fold);
+
+            assertEquals(23, test.size() + training.size());
+
+            for (Document document : training) {
+                assertFalse(test.contains(document));
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSameFolds() {
+
+        final FoldPlan a = new FoldPlan(corpus, 3, 7);
+        final FoldPlan b = new FoldPlan(corpus, 3, 7);
+
+        for (int fold = 0; fold < a.size(); fold++) {
+            assertEquals(a.testDocuments(fold), b.testDocuments(fold));
+        }
+    }
+
+    @Test
+    public void doesNotModifyInput() {
+
+        final List<Document> original = new ArrayList<>(corpus.getDocuments());
+
+        new FoldPlan(corpus, 5, 3).testCorpus(0);
+
+        assertEquals(original, corpus.getDocuments());
+    }
+
+    @Test
+    public void corporaMatchRecountedStats() {
+
+        final FoldPlan plan = new FoldPlan(corpus, 5, 4);
+        final Corpus test = plan.testCorpus(2);
+        final Corpus training = plan.trainingCorpus(2, test);
+        final Corpus recounted = new Corpus(new ArrayList<>(plan.trainingDocuments(2)), corpus.getVocabulary());
+
+        assertEquals(recounted.getTotalTokens(), training.getTotalTokens());
+        assertEquals(recounted.getUniqueTokens(), training.getUniqueTokens());
+
+        for (String token : corpus.getUniqueTokens()) {
+            assertEquals(recounted.getFrequency(token), training.getFrequency(token));
+            assertEquals(recounted.numOfDocsContainingToken(token), training.numOfDocsContainingToken(token));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewsAreReadOnly() {
+
+        new FoldPlan(corpus, 2, 5).testDocuments(0).add(new Document(null, "uusi"));
+    }
+
+    @Test
+    public void moreFoldsThanDocuments() {
+
+        final FoldPlan plan = new FoldPlan(new Corpus(Collections.<Document>emptyList()), 3, 6);
+
+        assertEquals(3, plan.size());
+        assertTrue(plan.testDocuments(1).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void foldCountMustBePositive() {
+
+        new FoldPlan(corpus, 0, 1);
+    }
+}
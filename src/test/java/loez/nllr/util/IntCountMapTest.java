@@ -0,0 +1,160 @@
+package loez.nllr.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntCountMapTest {
+
+    private IntCountMap map;
+
+    @Before
+    public void setUp() {
+
+        map = new IntCountMap();
+    }
+
+    @Test
+    public void absentKeysHaveZeroCount() {
+
+        assertEquals("An absent key should have a count of zero",
+                0, map.get(5));
+        assertEquals("A negative key should have a count of zero",
+                0, map.get(-1));
+        assertFalse("An empty map should not contain keys",
+                map.containsKey(5));
+    }
+
+    @Test
+    public void addAndIncrementUpdateCounts() {
+
+        assertEquals("increment() should return the new count",
+                1, map.increment(3));
+        assertEquals("add() should return the new count",
+                5, map.add(3, 4));
+        assertEquals("get() should return the current count",
+                5, map.get(3));
+        assertEquals("Size should count unique keys",
+                1, map.size());
+    }
+
+    @Test
+    public void keysWithZeroCountAreRemoved() {
+
+        map.add(3, 2);
+        map.add(3, -2);
+
+        assertFalse("A key whose count drops to zero should be removed",
+                map.containsKey(3));
+        assertTrue("The map should be empty after its only key is removed",
+                map.isEmpty());
+    }
+
+    @Test
+    public void remove() {
+
+        map.add(7, 3);
+
+        assertEquals("remove() should return the removed count",
+                3, map.remove(7));
+        assertEquals("remove() of an absent key should return zero",
+                0, map.remove(7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeKeysCannotBeAdded() {
+
+        map.increment(-1);
+    }
+
+    @Test
+    public void keysReturnsAllKeys() {
+
+        map.increment(1);
+        map.increment(100);
+        map.increment(1000);
+
+        final int[] keys = map.keys();
+        Arrays.sort(keys);
+
+        assertArrayEquals("keys() should return all keys",
+                new int[]{1, 100, 1000}, keys);
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+
+        final Random random = new Random(42);
+        final Map<Integer, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 20000; i++) {
+            final int key = random.nextInt(500);
+
+            if (random.nextInt(4) == 0) {
+                final Integer removed = expected.remove(key);
+                assertEquals(removed == null ? 0 : (int) removed, map.remove(key));
+            } else {
+                final int delta = random.nextInt(3) + 1;
+                final Integer old = expected.get(key);
+                expected.put(key, old == null ? delta : old + delta);
+                map.add(key, delta);
+            }
+        }
+
+        assertEquals("Size should match a HashMap after random operations",
+                expected.size(), map.size());
+
+        for (int key = 0; key < 500; key++) {
+            final Integer count = expected.get(key);
+            assertEquals("Count should match a HashMap after random operations",
+                    count == null ? 0 : (int) count, map.get(key));
+        }
+    }
+
+    @Test
+    public void copyIsIndependent() {
+
+        map.add(1, 3);
+        map.add(2, 4);
+
+        final IntCountMap copy = new IntCountMap(map);
+        copy.add(1, 1);
+        copy.remove(2);
+
+        assertEquals(3, map.get(1));
+        assertEquals(4, map.get(2));
+        assertEquals(4, copy.get(1));
+        assertFalse(copy.containsKey(2));
+    }
+
+    @Test
+    public void addAllSubtractsWithNegativeSign() {
+
+        map.add(1, 3);
+        map.add(2, 4);
+        map.add(3, 1);
+
+        final IntCountMap other = new IntCountMap();
+        other.add(1, 3);
+        other.add(2, 1);
+
+        map.addAll(other, -1);
+
+        assertFalse("Keys whose count drops to zero should be removed",
+                map.containsKey(1));
+        assertEquals(3, map.get(2));
+        assertEquals(1, map.get(3));
+        assertEquals(2, map.size());
+
+        map.addAll(other, 1);
+
+        assertEquals(3, map.get(1));
+        assertEquals(4, map.get(2));
+    }
+}